@@ -6,6 +6,7 @@
 package sprites;
 
 import com.jme3.math.Vector2f;
+import ui.ScaledImageCache;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -73,10 +74,9 @@ public class AnimatedSprite {
         }
         currentFrame = currentFrame % animationImages.size();
         int renderHeight = (int) (Constants.renderWidth / aspect);
-        gc.drawImage(animationImages.get(currentFrame),
+        ScaledImageCache.getInstance().drawImage(gc, animationImages.get(currentFrame),
                 (int) pos.x - Constants.renderWidth / 2, (int) pos.y - renderHeight / 2,
-                Constants.renderWidth, renderHeight,
-                null);
+                Constants.renderWidth, renderHeight);
     }
 
     public void setAnimationId(String animationId) {
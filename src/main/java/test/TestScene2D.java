@@ -15,15 +15,29 @@ import java.awt.*;
  * This class can be used to test the Scene2D functionality.
  */
 public class TestScene2D extends Scene2D {
+
+  /**
+   * Line end points, changed in each simulation step.
+   */
+  private final Vector2f a = new Vector2f(-0.5f, 0), b = new Vector2f(0.5f, 0);
+
   public TestScene2D(int width, int height) {
     super(width, height);
     setRenderArea(new Vector2f(-1, -1), new Vector2f(1, 1));
+    startAnimation(2);
+  }
+
+  @Override
+  protected void update(double dt) {
+    a.y = MathF.random() * 2 - 1;
+    b.y = MathF.random() * 2 - 1;
   }
 
   @Override
   public void paint(Graphics g) {
     Graphics2D graphics2D = (Graphics2D) g;
-    drawLine(graphics2D, new Vector2f(-0.5f, MathF.random() * 2 - 1), new Vector2f(0.5f, MathF.random() * 2 - 1), Color.BLUE);
+    clear(graphics2D);
+    drawLine(graphics2D, a, b, Color.BLUE);
   }
 
   @Override
@@ -17,15 +17,23 @@ import com.jme3.scene.Node;
 import com.jme3.scene.shape.Box;
 import misc.AxisAlignedBoundingBox;
 import ui.AbstractCameraController;
+import ui.AssetPreloader;
 import ui.Scene3D;
 
 public class TestScene3D extends Scene3D {
+  private static final String TEXTURE = "textures/sweets.jpg";
+
+  @Override
+  public void declareAssets(AssetPreloader assets) {
+    assets.preloadTexture(TEXTURE);
+  }
+
   @Override
   public void init(AssetManager assetManager, Node rootNode, AbstractCameraController cameraController) {
     Mesh mesh = new Box(new Vector3f(-0.5f, -0.5f, -0.5f), new Vector3f(0.5f, 0.5f, 0.5f));
     Geometry geometry = new Geometry("Mesh", mesh);
     Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
-    mat.setTexture("ColorMap", assetManager.loadTexture("textures/sweets.jpg"));
+    mat.setTexture("ColorMap", getAssets().getTexture(TEXTURE));
     geometry.setMaterial(mat);
     rootNode.attachChild(geometry);
     AxisAlignedBoundingBox bbox = new AxisAlignedBoundingBox();
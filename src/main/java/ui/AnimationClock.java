@@ -0,0 +1,95 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+/**
+ * Fixed timestep clock: converts the (irregular) frame times into a number of simulation steps of constant
+ * length. The remaining fraction of a step is used to interpolate the rendering between two simulation states.
+ */
+class AnimationClock {
+
+  /**
+   * Simulation time is not advanced by more than this per frame (seconds), so that a long stall does not
+   * trigger an avalanche of updates.
+   */
+  private static final double MAX_FRAME_TIME = 0.25;
+
+  /**
+   * Smoothing factor of the frame rate measurement.
+   */
+  private static final double FPS_SMOOTHING = 0.1;
+
+  /**
+   * Length of a simulation step in seconds.
+   */
+  private final double step;
+
+  /**
+   * Time of the last frame, -1 before the first frame.
+   */
+  private long lastFrameNanos = -1;
+
+  /**
+   * Simulation time not yet consumed by a step (seconds).
+   */
+  private double accumulator;
+
+  /**
+   * Smoothed duration of a frame in seconds, 0 if unknown.
+   */
+  private double frameTime;
+
+  public AnimationClock(double updatesPerSecond) {
+    this.step = 1.0 / updatesPerSecond;
+  }
+
+  /**
+   * Advance the clock to the given frame time.
+   *
+   * @return Number of simulation steps to perform for this frame.
+   */
+  public int advance(long nowNanos) {
+    if (lastFrameNanos < 0) {
+      lastFrameNanos = nowNanos;
+      return 0;
+    }
+    double elapsed = (nowNanos - lastFrameNanos) * 1e-9;
+    lastFrameNanos = nowNanos;
+    frameTime = frameTime == 0 ? elapsed : frameTime + FPS_SMOOTHING * (elapsed - frameTime);
+    accumulator += Math.min(elapsed, MAX_FRAME_TIME);
+    int steps = (int) (accumulator / step);
+    accumulator -= steps * step;
+    return steps;
+  }
+
+  /**
+   * Restart the time measurement at the next frame, so the time the animation was paused is not simulated.
+   */
+  public void pause() {
+    lastFrameNanos = -1;
+  }
+
+  /**
+   * Length of a simulation step in seconds.
+   */
+  public double getStep() {
+    return step;
+  }
+
+  /**
+   * Fraction of the next simulation step already elapsed, in [0, 1).
+   */
+  public float getInterpolation() {
+    return (float) (accumulator / step);
+  }
+
+  /**
+   * Measured frame rate, 0 if unknown.
+   */
+  public double getFramesPerSecond() {
+    return frameTime > 0 ? 1.0 / frameTime : 0;
+  }
+}
@@ -0,0 +1,199 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.scene.Spatial;
+import com.jme3.texture.Texture;
+import misc.Logger;
+import org.apache.commons.lang3.Validate;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Loads the models and textures of scenes on background threads and caches them. Scenes declare their assets in
+ * Scene3D.declareAssets(), the application calls Scene3D.init() once they are loaded, so the window stays
+ * responsive while large files are decoded. In init(), the scene gets clones of the cached assets via getModel()
+ * and getTexture() (the clones share meshes and images with the cached originals, like assets returned by the
+ * AssetManager). The loading progress is shown by the status bar item.
+ * <p>
+ * Loading is thread-safe, the other methods must be called on the jMonkey thread.
+ */
+public class AssetPreloader {
+
+  /**
+   * Loader threads shared by all preloaders. Loading is mostly I/O and decoding, a few threads suffice.
+   */
+  private static final ExecutorService loaders = Executors.newFixedThreadPool(
+          Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)), new LoaderThreadFactory());
+
+  private static class LoaderThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "asset-loader-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  private volatile AssetManager assetManager;
+
+  /**
+   * Loaded (or loading) originals per asset path.
+   */
+  private final Map<String, CompletableFuture<Spatial>> models = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<Texture>> textures = new ConcurrentHashMap<>();
+
+  /**
+   * Assets declared by the current scene, the other assets are released by preload().
+   */
+  private final Set<String> declaredModels = new HashSet<>(), declaredTextures = new HashSet<>();
+
+  /**
+   * Progress of the current loads.
+   */
+  private final AtomicInteger requestedCount = new AtomicInteger(), finishedCount = new AtomicInteger();
+
+  private final StatusBar.ValueStatusBarItem<String> statusBarItem =
+          new StatusBar.ValueStatusBarItem<>("Assets", Function.identity());
+
+  /**
+   * The asset manager is required before the first asset is loaded.
+   */
+  public void setAssetManager(AssetManager assetManager) {
+    this.assetManager = assetManager;
+  }
+
+  /**
+   * Let the scene declare its assets and start loading them. Cached assets which are not declared by the scene are
+   * released.
+   *
+   * @return Completed when all declared assets are loaded or failed to load.
+   */
+  public CompletableFuture<Void> preload(Scene3D scene) {
+    declaredModels.clear();
+    declaredTextures.clear();
+    if (finishedCount.get() == requestedCount.get()) {
+      // Nothing is loading, restart the progress
+      requestedCount.set(0);
+      finishedCount.set(0);
+    }
+    scene.setAssets(this);
+    scene.declareAssets(this);
+    models.keySet().retainAll(declaredModels);
+    textures.keySet().retainAll(declaredTextures);
+
+    List<CompletableFuture<?>> loads = new ArrayList<>();
+    declaredModels.forEach(path -> loads.add(models.get(path)));
+    declaredTextures.forEach(path -> loads.add(textures.get(path)));
+    return CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).exceptionally(e -> null);
+  }
+
+  /**
+   * Start loading the model in the background (if not cached yet).
+   */
+  public CompletableFuture<Spatial> preloadModel(String path) {
+    declaredModels.add(path);
+    return models.compute(path, (key, loaded) -> isUsable(loaded) ? loaded :
+            load(path, () -> assetManager.loadModel(path)));
+  }
+
+  /**
+   * Start loading the texture in the background (if not cached yet).
+   */
+  public CompletableFuture<Texture> preloadTexture(String path) {
+    declaredTextures.add(path);
+    return textures.compute(path, (key, loaded) -> isUsable(loaded) ? loaded :
+            load(path, () -> assetManager.loadTexture(path)));
+  }
+
+  /**
+   * Returns a clone of the model. Waits if the model is still loading, loads it if it was not declared.
+   *
+   * @throws com.jme3.asset.AssetNotFoundException If the model does not exist.
+   */
+  public Spatial getModel(String path) {
+    return join(preloadModel(path)).clone();
+  }
+
+  /**
+   * Returns a clone of the texture (sharing the image), see getModel().
+   */
+  public Texture getTexture(String path) {
+    return join(preloadTexture(path)).clone();
+  }
+
+  /**
+   * Release all cached assets.
+   */
+  public void clear() {
+    models.clear();
+    textures.clear();
+  }
+
+  /**
+   * Shows the loading progress, add it to the status bar.
+   */
+  public StatusBar.ValueStatusBarItem<String> getStatusBarItem() {
+    return statusBarItem;
+  }
+
+  private static boolean isUsable(CompletableFuture<?> loaded) {
+    // Failed loads are retried
+    return loaded != null && !loaded.isCompletedExceptionally();
+  }
+
+  private <T> CompletableFuture<T> load(String path, Supplier<T> loader) {
+    Validate.validState(assetManager != null, "no asset manager set");
+    requestedCount.incrementAndGet();
+    updateStatusBarItem();
+    CompletableFuture<T> load = CompletableFuture.supplyAsync(loader, loaders);
+    load.whenComplete((asset, e) -> {
+      if (e != null) {
+        Logger.getInstance().error("Failed to load asset " + path + ": " + e.getCause());
+      }
+      finishedCount.incrementAndGet();
+      updateStatusBarItem();
+    });
+    return load;
+  }
+
+  private void updateStatusBarItem() {
+    int requested = requestedCount.get(), finished = Math.min(finishedCount.get(), requested);
+    String progress = finished == requested ? requested + " loaded" : finished + "/" + requested + " loading";
+    SwingUtilities.invokeLater(() -> statusBarItem.setValue(progress));
+  }
+
+  /**
+   * Wait for the load, rethrows the exception of a failed load.
+   */
+  private static <T> T join(CompletableFuture<T> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Locale;
+
+/**
+ * Tick layout of a coordinate axis. The tick spacing is a "nice" number (1, 2 or 5 times a power of ten) chosen
+ * such that neighboring ticks are at least a given number of pixels apart, so the number of ticks only depends on
+ * the pixel size of the axis, not on the world space range.
+ */
+public class AxisTicks {
+
+  /**
+   * Upper bound for the number of ticks, independent of the requested spacing.
+   */
+  private static final int MAX_TICKS = 1000;
+
+  /**
+   * Distance between two neighboring ticks (world coordinates).
+   */
+  private final double step;
+
+  /**
+   * Tick i is located at (firstIndex + i) * step.
+   */
+  private final long firstIndex;
+
+  private final int count;
+
+  /**
+   * Number of decimal places in the labels.
+   */
+  private final int decimals;
+
+  /**
+   * Labels, created on first access.
+   */
+  private final String[] labels;
+
+  private AxisTicks(double step, long firstIndex, int count) {
+    this.step = step;
+    this.firstIndex = firstIndex;
+    this.count = count;
+    this.decimals = count > 0 ? Math.max(0, (int) -Math.floor(Math.log10(step) + 1e-9)) : 0;
+    this.labels = new String[count];
+  }
+
+  /**
+   * Compute the ticks strictly between min and max (world coordinates).
+   *
+   * @param pixelLength  Length of the axis range [min, max] on screen in pixels.
+   * @param minSpacingPx Minimum distance between two neighboring ticks in pixels.
+   */
+  public static AxisTicks compute(double min, double max, double pixelLength, double minSpacingPx) {
+    Validate.isTrue(minSpacingPx > 0, "minSpacingPx must be positive");
+    double range = max - min;
+    if (!(range > 0) || !(pixelLength > 0) || Double.isInfinite(range)) {
+      return new AxisTicks(1, 0, 0);
+    }
+    double step = niceStep(range * minSpacingPx / pixelLength);
+    long firstIndex = (long) Math.floor(min / step) + 1;
+    long lastIndex = (long) Math.ceil(max / step) - 1;
+    int count = (int) Math.max(0, Math.min(lastIndex - firstIndex + 1, MAX_TICKS));
+    return new AxisTicks(step, firstIndex, count);
+  }
+
+  /**
+   * Smallest number of the form {1, 2, 5} * 10^k which is greater or equal to minStep.
+   */
+  static double niceStep(double minStep) {
+    double magnitude = Math.pow(10, Math.floor(Math.log10(minStep)));
+    double fraction = minStep / magnitude;
+    double nice;
+    if (fraction <= 1) {
+      nice = 1;
+    } else if (fraction <= 2) {
+      nice = 2;
+    } else if (fraction <= 5) {
+      nice = 5;
+    } else {
+      nice = 10;
+    }
+    return nice * magnitude;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public double getStep() {
+    return step;
+  }
+
+  /**
+   * Position of the i-th tick (world coordinates).
+   */
+  public double getValue(int i) {
+    return (firstIndex + i) * step;
+  }
+
+  /**
+   * The i-th tick is located at the origin (usually not labeled).
+   */
+  public boolean isOrigin(int i) {
+    return firstIndex + i == 0;
+  }
+
+  /**
+   * Label of the i-th tick, formatted with as many decimal places as the step requires.
+   */
+  public String getLabel(int i) {
+    String label = labels[i];
+    if (label == null) {
+      if (decimals == 0) {
+        label = Long.toString(Math.round(getValue(i)));
+      } else {
+        label = String.format(Locale.ROOT, "%." + decimals + "f", getValue(i));
+      }
+      labels[i] = label;
+    }
+    return label;
+  }
+}
@@ -10,7 +10,10 @@ import com.jme3.math.Ray;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.RenderManager;
-import shape3d.Ray3D;
+import com.jme3.scene.Node;
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * JME application to handle a 3D scene.
@@ -22,6 +25,26 @@ public class CG3DApplication extends SimpleApplication {
      */
     private Scene3D scene3D;
 
+    /**
+     * Root node of the current scene (child of the root node).
+     */
+    private Node sceneRoot;
+
+    /**
+     * Scene set by setScene3D(), its initialization starts in the next frame.
+     */
+    private Scene3D requestedScene3D;
+
+    /**
+     * Scene replacing the current scene as soon as it is initialized, null if none.
+     */
+    private SceneInitializer nextScene;
+
+    /**
+     * Time per frame spent on initializing the next scene.
+     */
+    private long sceneInitBudgetNanos = SceneInitializer.DEFAULT_BUDGET_NANOS;
+
     /**
      * Camera controller.
      */
@@ -31,7 +54,20 @@ public class CG3DApplication extends SimpleApplication {
 
     private Runnable jMonkeyTask;
 
-    private boolean sceneIsInitialized = false;
+    /**
+     * Cached assets of the scenes.
+     */
+    private final AssetPreloader assets = new AssetPreloader();
+
+    /**
+     * Merge the static geometries of the scene after its initialization, see StaticBatcher.
+     */
+    private boolean staticBatching = false;
+
+    /**
+     * Generate levels of detail for the large meshes of the scene after its initialization, see LodGenerator.
+     */
+    private boolean automaticLod = false;
 
     public CG3DApplication(String title) {
         // Default scene - should be replaced later
@@ -42,13 +78,33 @@ public class CG3DApplication extends SimpleApplication {
         this("");
     }
 
+    /**
+     * Replace the current scene. The new scene is initialized across several frames (see Scene3D.initSteps()),
+     * the current scene keeps running until the new scene is ready.
+     */
     protected void setScene3D(Scene3D scene3D) {
-        this.scene3D = scene3D;
-        sceneIsInitialized = false;
+        requestedScene3D = scene3D;
+    }
+
+    /**
+     * Set the time per frame spent on initializing a new scene (default: 8ms).
+     */
+    public void setSceneInitBudget(long time, TimeUnit unit) {
+        Validate.isTrue(time > 0, "budget must be positive");
+        sceneInitBudgetNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Initialize new scenes completely in the frame in which they are set, without time budget. The frame waits
+     * for the assets of the scene and may take long, but the scene is updated from the next frame on.
+     */
+    public void setUnlimitedSceneInitBudget() {
+        sceneInitBudgetNanos = SceneInitializer.UNLIMITED_BUDGET;
     }
 
     @Override
     public void simpleInitApp() {
+        assets.setAssetManager(assetManager);
         setupInput();
         setDisplayFps(false);
         setDisplayStatView(false);
@@ -59,9 +115,15 @@ public class CG3DApplication extends SimpleApplication {
 
     @Override
     public void simpleUpdate(float tpf) {
-        if (scene3D != null && sceneIsInitialized) {
+        if (scene3D != null) {
+            FrameProfiler profiler = FrameProfiler.getInstance();
+            long time = profiler.start();
+            hover.dispatch(scene3D, inputManager, cam);
+            time = profiler.lap(FrameProfiler.Phase.HOVER, time);
             scene3D.invokeRunlaterTasks();
+            time = profiler.lap(FrameProfiler.Phase.RUN_LATER, time);
             scene3D.update(tpf);
+            time = profiler.lap(FrameProfiler.Phase.UPDATE, time);
             if (scene3D.hasNewCameraController()) {
                 AbstractCameraController cameraController = scene3D.getAndResetNewCameraController();
                 if (cameraController != null) {
@@ -70,25 +132,93 @@ public class CG3DApplication extends SimpleApplication {
                 }
             }
             cameraController.update();
+            profiler.lap(FrameProfiler.Phase.CAMERA, time);
         }
     }
 
     @Override
     public void simpleRender(RenderManager rm) {
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        long time = profiler.start();
         if (jMonkeyTask != null) {
             jMonkeyTask.run();
             jMonkeyTask = null;
+            time = profiler.lap(FrameProfiler.Phase.SCENE_SWAP, time);
         }
-        if (scene3D != null) {
-            if (!sceneIsInitialized) {
-                // First rendering of the scene -> initialize
-                scene3D.init(assetManager, rootNode, cameraController);
-                scene3D.setupLights(rootNode, viewPort);
-                sceneIsInitialized = true;
+        if (requestedScene3D != null) {
+            if (nextScene != null) {
+                // Superseded before it was ready
+                nextScene.getScene().cancelBackgroundJobs();
             }
-            scene3D.invokeRunlaterTasks();
+            // Load the assets of the new scene in the background
+            nextScene = new SceneInitializer(requestedScene3D, assets.preload(requestedScene3D), automaticLod,
+                staticBatching);
+            requestedScene3D = null;
+        }
+        if (nextScene != null) {
+            boolean ready = nextScene.advance(assetManager, cameraController, rm, viewPort,
+                    sceneInitBudgetNanos);
+            time = profiler.lap(FrameProfiler.Phase.SCENE_INIT, time);
+            if (ready) {
+                swapScene(nextScene);
+                nextScene = null;
+                time = profiler.lap(FrameProfiler.Phase.SCENE_SWAP, time);
+            }
+        }
+        if (scene3D != null) {
             scene3D.render();
+            profiler.lap(FrameProfiler.Phase.RENDER, time);
+        }
+    }
+
+    /**
+     * Make the initialized scene the current scene.
+     */
+    private void swapScene(SceneInitializer initializer) {
+        if (scene3D != null && scene3D != initializer.getScene()) {
+            scene3D.cancelBackgroundJobs();
         }
+        if (sceneRoot != null) {
+            rootNode.detachChild(sceneRoot);
+        }
+        sceneRoot = initializer.getSceneRoot();
+        rootNode.attachChild(sceneRoot);
+        scene3D = initializer.getScene();
+    }
+
+    /**
+     * Enable merging the static geometries of a scene after its initialization. Geometries which are moved later
+     * must be marked using StaticBatcher.markDynamic().
+     */
+    public void setStaticBatching(boolean staticBatching) {
+        this.staticBatching = staticBatching;
+    }
+
+    /**
+     * Enable generating levels of detail for the large meshes of a scene after its initialization. Meshes whose
+     * vertices change must be marked using StaticBatcher.markDynamic().
+     */
+    public void setAutomaticLod(boolean automaticLod) {
+        this.automaticLod = automaticLod;
+    }
+
+    public AssetPreloader getAssets() {
+        return assets;
+    }
+
+    /**
+     * Coalesced mouse movements without pressed button, see Scene3D.handleMouseMove().
+     */
+    private final HoverDispatcher hover = new HoverDispatcher();
+
+    /**
+     * Run the application without window and GPU for the given number of frames (see HeadlessSimulation) and wait
+     * until it is finished. Use instead of start().
+     *
+     * @return Number of simulated frames.
+     */
+    public int runHeadless(int frameCount) {
+        return new HeadlessSimulation(this, frameCount).run();
     }
 
     public void zoom(float delta) {
@@ -237,16 +367,9 @@ public class CG3DApplication extends SimpleApplication {
                     break;
             }
         } else {
-            // no mouse button pressed
+            // no mouse button pressed: the scene is notified once per frame, see HoverDispatcher
             if (name.equals(MOUSE_MOVE_LEFT) || name.equals(MOUSE_MOVE_RIGHT) || name.equals(MOUSE_MOVE_UP) || name.equals(MOUSE_MOVE_DOWN)) {
-                Vector2f click2d = inputManager.getCursorPosition().clone();
-                Vector3f click3d = cam.getWorldCoordinates(
-                        click2d, 0f).clone();
-                Vector3f dir = cam.getWorldCoordinates(
-                        click2d, 1f).subtractLocal(click3d).normalizeLocal();
-                if (scene3D != null) {
-                    scene3D.handleMouseMove(click2d, new Ray3D(cam.getLocation(), dir));
-                }
+                hover.mouseMoved();
             }
         }
     };
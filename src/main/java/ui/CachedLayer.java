@@ -0,0 +1,84 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+package ui;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * Retained image of static 2D content. The content is rendered once and then only composited until the layer
+ * is invalidated or the target size, device scale or font change.
+ */
+class CachedLayer {
+
+    /**
+     * Rendered content, null if the layer has not been rendered yet.
+     */
+    private BufferedImage image;
+
+    /**
+     * Size (in user space) and device scale the image was rendered for.
+     */
+    private int width, height;
+    private double scaleX, scaleY;
+
+    /**
+     * Font the image was rendered with.
+     */
+    private Font font;
+
+    /**
+     * The cached content is up to date.
+     */
+    private boolean valid;
+
+    /**
+     * Composite the layer into gc, (re-)render the content using the painter if required.
+     */
+    public void draw(Graphics2D gc, int width, int height, Consumer<Graphics2D> painter) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        AffineTransform transform = gc.getTransform();
+        if (!valid || width != this.width || height != this.height
+                || transform.getScaleX() != scaleX || transform.getScaleY() != scaleY
+                || !gc.getFont().equals(font)) {
+            render(gc, width, height, transform.getScaleX(), transform.getScaleY(), painter);
+        }
+        gc.drawImage(image, 0, 0, width, height, null);
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    private void render(Graphics2D gc, int width, int height, double scaleX, double scaleY,
+                        Consumer<Graphics2D> painter) {
+        int imageWidth = (int) Math.ceil(width * scaleX);
+        int imageHeight = (int) Math.ceil(height * scaleY);
+        if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+            image = gc.getDeviceConfiguration().createCompatibleImage(imageWidth, imageHeight,
+                    Transparency.TRANSLUCENT);
+        }
+        Graphics2D layerGc = image.createGraphics();
+        layerGc.setComposite(AlphaComposite.Clear);
+        layerGc.fillRect(0, 0, imageWidth, imageHeight);
+        layerGc.setComposite(AlphaComposite.SrcOver);
+        layerGc.setRenderingHints(gc.getRenderingHints());
+        layerGc.setFont(gc.getFont());
+        layerGc.scale(scaleX, scaleY);
+        painter.accept(layerGc);
+        layerGc.dispose();
+
+        this.width = width;
+        this.height = height;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.font = gc.getFont();
+        valid = true;
+    }
+}
@@ -5,7 +5,6 @@
 
 package ui;
 
-import shape3d.Ray3D;
 import com.jme3.app.FlyCamAppState;
 import com.jme3.app.SimpleApplication;
 import com.jme3.input.KeyInput;
@@ -16,6 +15,13 @@ import com.jme3.math.Ray;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is the main application which is used for all exercises. Only adjust the
@@ -55,24 +61,128 @@ public class ComputergraphicsJMEApp extends SimpleApplication {
 
   private Runnable jMonkeyTask;
 
+  /**
+   * Root node of the current scene (child of the root node).
+   */
+  private Node sceneRoot;
+
+  /**
+   * Children of the root node attached outside of the scene root by the current (or a superseded) scene, e.g.
+   * via getRootNode() after provideJMEApp(). They are detached when the next scene becomes current.
+   */
+  private final List<Spatial> outgoingChildren = new ArrayList<>();
+
+  /**
+   * Scene replacing the current scene as soon as it is initialized, null if none.
+   */
+  private SceneInitializer nextScene;
+
+  /**
+   * Time per frame spent on initializing the next scene.
+   */
+  private long sceneInitBudgetNanos = SceneInitializer.DEFAULT_BUDGET_NANOS;
+
+  /**
+   * Cached assets of the scenes.
+   */
+  private final AssetPreloader assets = new AssetPreloader();
+
   private ColorRGBA backgroundColor = ColorRGBA.LightGray;
 
+  /**
+   * Merge the static geometries of a scene after its initialization, see StaticBatcher.
+   */
+  private boolean staticBatching = false;
+
+  /**
+   * Generate levels of detail for the large meshes of the scene after its initialization, see LodGenerator.
+   */
+  private boolean automaticLod = false;
+
   public ComputergraphicsJMEApp() {
   }
 
+  /**
+   * Replace the current scene. The assets of the new scene are loaded in the background (see
+   * Scene3D.declareAssets()) and the new scene is initialized across several frames (see Scene3D.initSteps()),
+   * the current scene keeps running until the new scene is ready.
+   */
   public void replaceScene(Scene3D scene) {
     jMonkeyTask = () -> {
-      rootNode.detachAllChildren();
+      if (nextScene != null) {
+        // Superseded before it was ready
+        nextScene.getScene().cancelBackgroundJobs();
+      }
+      // Everything attached so far belongs to the outgoing scenes
+      for (Spatial child : rootNode.getChildren()) {
+        if (child != sceneRoot && !outgoingChildren.contains(child)) {
+          outgoingChildren.add(child);
+        }
+      }
       scene.provideJMEApp(this);
-      scene.init(assetManager, rootNode, cameraController);
-      scene.setupLights(rootNode, viewPort);
-      viewPort.setBackgroundColor(backgroundColor);
-      this.scene = scene;
+      nextScene = new SceneInitializer(scene, assets.preload(scene), automaticLod, staticBatching);
     };
   }
 
+  /**
+   * Make the initialized scene the current scene.
+   */
+  private void swapScene(SceneInitializer initializer) {
+    if (scene != null && scene != initializer.getScene()) {
+      scene.cancelBackgroundJobs();
+    }
+    if (sceneRoot != null) {
+      rootNode.detachChild(sceneRoot);
+    }
+    for (Spatial child : outgoingChildren) {
+      rootNode.detachChild(child);
+    }
+    outgoingChildren.clear();
+    sceneRoot = initializer.getSceneRoot();
+    rootNode.attachChild(sceneRoot);
+    viewPort.setBackgroundColor(backgroundColor);
+    scene = initializer.getScene();
+  }
+
+  /**
+   * Set the time per frame spent on initializing a new scene (default: 8ms).
+   */
+  public void setSceneInitBudget(long time, TimeUnit unit) {
+    Validate.isTrue(time > 0, "budget must be positive");
+    sceneInitBudgetNanos = unit.toNanos(time);
+  }
+
+  /**
+   * Initialize new scenes completely in the frame in which they are set, without time budget. The frame waits
+   * for the assets of the scene and may take long, but the scene is updated from the next frame on.
+   */
+  public void setUnlimitedSceneInitBudget() {
+    sceneInitBudgetNanos = SceneInitializer.UNLIMITED_BUDGET;
+  }
+
+  public AssetPreloader getAssets() {
+    return assets;
+  }
+
+  /**
+   * Enable merging the static geometries of a scene after its initialization. Geometries which are moved later
+   * must be marked using StaticBatcher.markDynamic().
+   */
+  public void setStaticBatching(boolean staticBatching) {
+    this.staticBatching = staticBatching;
+  }
+
+  /**
+   * Enable generating levels of detail for the large meshes of a scene after its initialization. Meshes whose
+   * vertices change must be marked using StaticBatcher.markDynamic().
+   */
+  public void setAutomaticLod(boolean automaticLod) {
+    this.automaticLod = automaticLod;
+  }
+
   @Override
   public void simpleInitApp() {
+    assets.setAssetManager(assetManager);
     setupInput();
 
     // Debug
@@ -178,25 +288,24 @@ public class ComputergraphicsJMEApp extends SimpleApplication {
           break;
       }
     } else {
-      // no mouse button pressed
+      // no mouse button pressed: the scene is notified once per frame, see HoverDispatcher
       if (name.equals(MOUSE_MOVE_LEFT) || name.equals(MOUSE_MOVE_RIGHT) || name.equals(MOUSE_MOVE_UP) || name.equals(MOUSE_MOVE_DOWN)) {
-        Vector2f click2d = inputManager.getCursorPosition().clone();
-        Vector3f click3d = cam.getWorldCoordinates(
-                click2d, 0f).clone();
-        Vector3f dir = cam.getWorldCoordinates(
-                click2d, 1f).subtractLocal(click3d).normalizeLocal();
-        if (scene != null) {
-          scene.handleMouseMove(click2d, new Ray3D(cam.getLocation(), dir));
-        }
+        hover.mouseMoved();
       }
     }
   };
 
   @Override
   public void simpleUpdate(float tpf) {
+    FrameProfiler profiler = FrameProfiler.getInstance();
+    long time = profiler.start();
     if (scene != null) {
+      hover.dispatch(scene, inputManager, cam);
+      time = profiler.lap(FrameProfiler.Phase.HOVER, time);
       scene.invokeRunlaterTasks();
+      time = profiler.lap(FrameProfiler.Phase.RUN_LATER, time);
       scene.update(tpf);
+      time = profiler.lap(FrameProfiler.Phase.UPDATE, time);
 //    if (scene.hasNewCameraController()) {
 //      ObserverCameraController cameraController = scene.getCameraController(cam);
 //      if (cameraController != null) {
@@ -206,19 +315,39 @@ public class ComputergraphicsJMEApp extends SimpleApplication {
 //    }
     }
     cameraController.update();
+    profiler.lap(FrameProfiler.Phase.CAMERA, time);
   }
 
   @Override
   public void simpleRender(RenderManager rm) {
+    FrameProfiler profiler = FrameProfiler.getInstance();
+    long time = profiler.start();
     if (jMonkeyTask != null) {
       jMonkeyTask.run();
       jMonkeyTask = null;
+      time = profiler.lap(FrameProfiler.Phase.SCENE_SWAP, time);
+    }
+    if (nextScene != null) {
+      boolean ready = nextScene.advance(assetManager, cameraController, rm, viewPort,
+              sceneInitBudgetNanos);
+      time = profiler.lap(FrameProfiler.Phase.SCENE_INIT, time);
+      if (ready) {
+        swapScene(nextScene);
+        nextScene = null;
+        time = profiler.lap(FrameProfiler.Phase.SCENE_SWAP, time);
+      }
     }
     if (scene != null) {
       scene.render();
+      profiler.lap(FrameProfiler.Phase.RENDER, time);
     }
   }
 
+  /**
+   * Coalesced mouse movements without pressed button, see Scene3D.handleMouseMove().
+   */
+  private final HoverDispatcher hover = new HoverDispatcher();
+
   public void zoom(float delta) {
     cameraController.zoom(delta);
   }
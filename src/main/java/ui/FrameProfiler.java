@@ -0,0 +1,185 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import misc.Logger;
+
+import javax.swing.*;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timings of the phases of the jMonkey render loop. The phases are timed with System.nanoTime() and recorded in
+ * one LatencyHistogram per phase, the median, 99th percentile and maximum are shown in the status bar (see
+ * addTo()) or logged (see logReport()).
+ * <p>
+ * Usage on the render thread:
+ * <pre>
+ *   long time = profiler.start();
+ *   ... // first phase
+ *   time = profiler.lap(Phase.UPDATE, time);
+ *   ... // second phase
+ *   profiler.lap(Phase.RENDER, time);
+ * </pre>
+ * When the profiler is disabled (default), start() and lap() only read a flag and nothing is recorded.
+ */
+public class FrameProfiler {
+
+  public enum Phase {
+    SCENE_SWAP("Scene swap"),
+    SCENE_INIT("Scene init"),
+    HOVER("Hover"),
+    RUN_LATER("Run later"),
+    UPDATE("Update"),
+    CAMERA("Camera"),
+    RENDER("Render");
+
+    private final String caption;
+
+    Phase(String caption) {
+      this.caption = caption;
+    }
+
+    public String getCaption() {
+      return caption;
+    }
+  }
+
+  /**
+   * Returned by start() and lap() if the profiler is disabled.
+   */
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  /**
+   * Refresh interval of the status bar items.
+   */
+  private static final int STATUS_BAR_REFRESH_MILLIS = 500;
+
+  private static final FrameProfiler instance = new FrameProfiler();
+
+  private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+  private volatile boolean enabled = false;
+
+  /**
+   * Status bar items and the timer refreshing them, event dispatch thread only.
+   */
+  private final Map<Phase, StatusBar.ValueStatusBarItem<LatencyHistogram>> statusBarItems = new EnumMap<>(Phase.class);
+  private Timer statusBarTimer = null;
+
+  FrameProfiler() {
+    for (Phase phase : Phase.values()) {
+      histograms.put(phase, new LatencyHistogram());
+    }
+  }
+
+  public static FrameProfiler getInstance() {
+    return instance;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Start timing the first phase.
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : NOT_TIMED;
+  }
+
+  /**
+   * Record the phase which started at the given time (result of start() or the previous lap()).
+   *
+   * @return Start time of the next phase.
+   */
+  public long lap(Phase phase, long startTime) {
+    if (startTime == NOT_TIMED) {
+      // Disabled at the start of the phase
+      return start();
+    }
+    long now = System.nanoTime();
+    histograms.get(phase).record(now - startTime);
+    return enabled ? now : NOT_TIMED;
+  }
+
+  LatencyHistogram getHistogram(Phase phase) {
+    return histograms.get(phase);
+  }
+
+  public void reset() {
+    histograms.values().forEach(LatencyHistogram::reset);
+  }
+
+  /**
+   * Table of the phase timings in milliseconds.
+   */
+  public String getReport() {
+    StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-12s %8s %8s %8s %8s %8s%n",
+            "Phase", "Count", "Mean", "p50", "p99", "Max"));
+    for (Phase phase : Phase.values()) {
+      LatencyHistogram histogram = histograms.get(phase);
+      report.append(String.format(Locale.ROOT, "%-12s %8d %8.3f %8.3f %8.3f %8.3f%n", phase.getCaption(),
+              histogram.getCount(), toMillis(histogram.getMean()), toMillis(histogram.getPercentile(0.5)),
+              toMillis(histogram.getPercentile(0.99)), toMillis(histogram.getMax())));
+    }
+    return report.toString();
+  }
+
+  /**
+   * Log the report, can be called from any thread.
+   */
+  public void logReport() {
+    Logger.getInstance().msg("Frame profile (ms):\n" + getReport());
+  }
+
+  /**
+   * Show the timings of the phases in the status bar, refreshed periodically while the profiler is enabled.
+   */
+  public void addTo(StatusBar statusBar) {
+    SwingUtilities.invokeLater(() -> {
+      for (Phase phase : Phase.values()) {
+        StatusBar.ValueStatusBarItem<LatencyHistogram> item = statusBarItems.get(phase);
+        if (item == null) {
+          item = new StatusBar.ValueStatusBarItem<>(phase.getCaption(), FrameProfiler::format);
+          statusBarItems.put(phase, item);
+        }
+        statusBar.add(item);
+      }
+      if (statusBarTimer == null) {
+        statusBarTimer = new Timer(STATUS_BAR_REFRESH_MILLIS, e -> refreshStatusBarItems());
+        statusBarTimer.start();
+      }
+    });
+  }
+
+  private void refreshStatusBarItems() {
+    if (!enabled) {
+      return;
+    }
+    statusBarItems.forEach((phase, item) -> item.setValue(histograms.get(phase)));
+  }
+
+  /**
+   * p50/p99/max in milliseconds.
+   */
+  static String format(LatencyHistogram histogram) {
+    if (histogram.getCount() == 0) {
+      return null;
+    }
+    return String.format(Locale.ROOT, "%.2f/%.2f/%.2f ms", toMillis(histogram.getPercentile(0.5)),
+            toMillis(histogram.getPercentile(0.99)), toMillis(histogram.getMax()));
+  }
+
+  private static double toMillis(double nanos) {
+    return nanos / 1e6;
+  }
+}
@@ -39,6 +39,7 @@ public class GenericCGApplication {
         this.app = new ComputergraphicsJMEApp();
         this.defaultContentIsInUse = false;
         this.computergraphicsWidget = new ComputergraphicsWidget(title, width, height);
+        computergraphicsWidget.getStatusBar().add(app.getAssets().getStatusBarItem());
         if (scene3D != null) {
             this.app.enqueue(() -> init3D(scene3D));
         }
@@ -56,6 +57,19 @@ public class GenericCGApplication {
         this.app.start();
     }
 
+    /**
+     * Run the scene without any window, GPU or Swing UI for the given number of frames (see HeadlessSimulation)
+     * and wait until it is finished.
+     *
+     * @return Number of simulated frames.
+     */
+    public static int runHeadless(Scene3D scene3D, int frameCount) {
+        Preconditions.checkNotNull(scene3D);
+        ComputergraphicsJMEApp app = new ComputergraphicsJMEApp();
+        app.replaceScene(scene3D);
+        return new HeadlessSimulation(app, frameCount).run();
+    }
+
     private void init3D(Scene3D scene3D) {
         while (app.getViewPort() == null) {
             try {
@@ -120,6 +134,15 @@ public class GenericCGApplication {
         }
     }
 
+    /**
+     * Enable the frame profiler and show the timings of the render loop phases in the status bar. A detailed
+     * report can be logged using FrameProfiler.getInstance().logReport().
+     */
+    protected void showFrameProfile() {
+        FrameProfiler.getInstance().setEnabled(true);
+        FrameProfiler.getInstance().addTo(getStatusBar());
+    }
+
     protected StatusBar getStatusBar() {
         return computergraphicsWidget.getStatusBar();
     }
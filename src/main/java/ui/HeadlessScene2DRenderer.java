@@ -0,0 +1,131 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Renders 2D scenes into images without any window, e.g. for the batch export of figures. Works with
+ * java.awt.headless=true. Batches are rendered in parallel, each scene (or parameter variation) is created by its
+ * own factory, so no scene instance is shared between threads.
+ */
+public class HeadlessScene2DRenderer {
+
+  /**
+   * Size of the rendered images in pixels.
+   */
+  private final int width, height;
+
+  /**
+   * Number of threads used for the batch rendering.
+   */
+  private final int numberOfThreads;
+
+  public HeadlessScene2DRenderer(int width, int height) {
+    this(width, height, Runtime.getRuntime().availableProcessors());
+  }
+
+  public HeadlessScene2DRenderer(int width, int height, int numberOfThreads) {
+    Validate.isTrue(width > 0 && height > 0, "image size must be positive");
+    Validate.isTrue(numberOfThreads > 0, "at least one thread is required");
+    this.width = width;
+    this.height = height;
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * Render the scene into a new image. The scene is resized to the image size.
+   */
+  public BufferedImage render(Scene2D scene) {
+    scene.setSize(width, height);
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D gc = image.createGraphics();
+    gc.setClip(0, 0, width, height);
+    gc.setBackground(Color.WHITE);
+    gc.clearRect(0, 0, width, height);
+    scene.paint(gc);
+    gc.dispose();
+    return image;
+  }
+
+  /**
+   * Render the scene and write the image as PNG file.
+   */
+  public void export(Scene2D scene, File file) throws IOException {
+    ImageIO.write(render(scene), "png", file);
+  }
+
+  /**
+   * Render all scenes in parallel.
+   *
+   * @return The images in the order of the scene factories.
+   */
+  public List<BufferedImage> renderAll(List<? extends Supplier<? extends Scene2D>> sceneFactories) {
+    List<Callable<BufferedImage>> tasks = new ArrayList<>();
+    for (Supplier<? extends Scene2D> sceneFactory : sceneFactories) {
+      tasks.add(() -> render(sceneFactory.get()));
+    }
+    try {
+      return invokeAll(tasks);
+    } catch (IOException e) {
+      // Not thrown by render()
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Render all scenes in parallel and write each image as PNG to the file it is mapped from. Images are written
+   * directly after rendering, so memory does not grow with the number of scenes.
+   */
+  public void exportAll(Map<File, ? extends Supplier<? extends Scene2D>> sceneFactories) throws IOException {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    sceneFactories.forEach((file, sceneFactory) -> tasks.add(() -> {
+      export(sceneFactory.get(), file);
+      return null;
+    }));
+    invokeAll(tasks);
+  }
+
+  /**
+   * Run the tasks on a thread pool and wait for all of them.
+   */
+  private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, Math.max(1, tasks.size())));
+    try {
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Rendering was interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException("Rendering failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.app.Application;
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.system.AppSettings;
+import com.jme3.system.JmeContext;
+import com.jme3.system.Timer;
+import misc.Logger;
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a jMonkey application (CG3DApplication, ComputergraphicsJMEApp) without a window, GPU or Swing UI, e.g. to
+ * precompute procedural content or to check the scene state on a server. The application runs in jMonkey's
+ * headless context (null renderer), the scene is initialized, updated and "rendered" as usual. The update time
+ * per frame is a fixed time step, independent of the wall clock, and scenes are initialized completely in the
+ * first frame (no init time budget), so runs are reproducible.
+ * <p>
+ * Usage:
+ * <pre>
+ *   int frames = new HeadlessSimulation(app, 600).run();
+ * </pre>
+ */
+public class HeadlessSimulation {
+
+  /**
+   * Frame count for simulations which run until stop() is called.
+   */
+  public static final int UNLIMITED = 0;
+
+  /**
+   * Interval in which the waiting thread checks whether the render thread is still alive.
+   */
+  private static final long ALIVE_CHECK_MILLIS = 100;
+
+  private final SimpleApplication app;
+
+  /**
+   * Number of frames to simulate, UNLIMITED to run until stop().
+   */
+  private final int frameCount;
+
+  /**
+   * Simulated time per frame in seconds.
+   */
+  private float timeStep = 1 / 60f;
+
+  /**
+   * Pace the frames in real time (one time step per frame) instead of running as fast as possible.
+   */
+  private boolean realTime = false;
+
+  /**
+   * Frames simulated so far, written by the render thread.
+   */
+  private volatile int simulatedFrames = 0;
+
+  private volatile Thread renderThread = null;
+
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  /**
+   * Advances by the time step on each frame.
+   */
+  private static class FixedStepTimer extends Timer {
+    private static final long RESOLUTION = TimeUnit.SECONDS.toNanos(1);
+
+    private final long stepNanos;
+
+    private long time = 0;
+
+    private FixedStepTimer(float timeStep) {
+      this.stepNanos = (long) (timeStep * RESOLUTION);
+    }
+
+    @Override
+    public long getTime() {
+      return time;
+    }
+
+    @Override
+    public long getResolution() {
+      return RESOLUTION;
+    }
+
+    @Override
+    public float getFrameRate() {
+      return (float) RESOLUTION / stepNanos;
+    }
+
+    @Override
+    public float getTimePerFrame() {
+      return (float) stepNanos / RESOLUTION;
+    }
+
+    @Override
+    public void update() {
+      time += stepNanos;
+    }
+
+    @Override
+    public void reset() {
+      time = 0;
+    }
+  }
+
+  /**
+   * Counts the frames and stops the application after the last frame.
+   */
+  private class SimulationState extends AbstractAppState {
+    @Override
+    public void initialize(AppStateManager stateManager, Application app) {
+      super.initialize(stateManager, app);
+      renderThread = Thread.currentThread();
+    }
+
+    @Override
+    public void postRender() {
+      simulatedFrames++;
+      if (frameCount != UNLIMITED && simulatedFrames >= frameCount) {
+        app.stop();
+      }
+    }
+
+    @Override
+    public void cleanup() {
+      super.cleanup();
+      finished.countDown();
+    }
+  }
+
+  /**
+   * @param app        Application with its scene, not started yet.
+   * @param frameCount Number of frames to simulate, UNLIMITED to run until stop() is called.
+   */
+  public HeadlessSimulation(SimpleApplication app, int frameCount) {
+    Validate.notNull(app, "app must not be null");
+    Validate.isTrue(frameCount >= 0, "frame count must not be negative");
+    this.app = app;
+    this.frameCount = frameCount;
+  }
+
+  /**
+   * Set the simulated time per frame in seconds (default: 1/60).
+   */
+  public void setTimeStep(float timeStep) {
+    Validate.isTrue(timeStep > 0, "time step must be positive");
+    this.timeStep = timeStep;
+  }
+
+  /**
+   * Pace the frames to one time step per frame in wall clock time. By default, frames are simulated as fast as
+   * possible.
+   */
+  public void setRealTime(boolean realTime) {
+    this.realTime = realTime;
+  }
+
+  /**
+   * Run the simulation and wait until it is finished (frame count reached or stop() called).
+   *
+   * @return Number of simulated frames.
+   */
+  public int run() {
+    AppSettings settings = new AppSettings(true);
+    settings.setAudioRenderer(null);
+    settings.setFrameRate(realTime ? Math.max(1, Math.round(1 / timeStep)) : -1);
+    app.setSettings(settings);
+    app.setShowSettings(false);
+    app.setTimer(new FixedStepTimer(timeStep));
+    if (app instanceof CG3DApplication) {
+      ((CG3DApplication) app).setUnlimitedSceneInitBudget();
+    } else if (app instanceof ComputergraphicsJMEApp) {
+      ((ComputergraphicsJMEApp) app).setUnlimitedSceneInitBudget();
+    }
+    app.getStateManager().attach(new SimulationState());
+    app.start(JmeContext.Type.Headless);
+
+    try {
+      while (!finished.await(ALIVE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+        Thread thread = renderThread;
+        if (thread != null && !thread.isAlive()) {
+          // Terminated by an exception in the scene, jMonkey has logged it
+          Logger.getInstance().error("Headless simulation aborted after " + simulatedFrames + " frames");
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      app.stop();
+    }
+    return simulatedFrames;
+  }
+
+  /**
+   * Stop the simulation after the current frame, can be called from any thread.
+   */
+  public void stop() {
+    app.stop();
+  }
+
+  /**
+   * Frames simulated so far.
+   */
+  public int getSimulatedFrames() {
+    return simulatedFrames;
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.input.InputManager;
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import shape3d.Ray3D;
+
+/**
+ * Coalesces the mouse movements (without pressed button) of a frame into a single Scene3D.handleMouseMove() call
+ * for the final cursor position. Shared by the jMonkey applications, one instance per application. The cursor and
+ * the ray passed to the scene are reused in every frame, so hovering does not allocate.
+ */
+class HoverDispatcher {
+
+  /**
+   * The mouse was moved without a pressed button since the last frame.
+   */
+  private boolean pending;
+
+  /**
+   * Scratch vectors for the hover ray.
+   */
+  private final Vector3f near = new Vector3f(), far = new Vector3f();
+
+  /**
+   * Event data passed to the scene, the ray references origin and direction, which are updated in place.
+   */
+  private final Vector2f cursor = new Vector2f();
+  private final Vector3f origin = new Vector3f(), direction = new Vector3f(0, 0, -1);
+  private final Ray3D ray = new Ray3D(origin, direction);
+
+  /**
+   * A mouse axis event without pressed button occurred.
+   */
+  void mouseMoved() {
+    pending = true;
+  }
+
+  /**
+   * Notify the scene about the mouse movement of the last frame, if any (jMonkey thread, once per frame).
+   */
+  void dispatch(Scene3D scene, InputManager inputManager, Camera cam) {
+    if (!pending) {
+      return;
+    }
+    pending = false;
+    cursor.set(inputManager.getCursorPosition());
+    cam.getWorldCoordinates(cursor, 0f, near);
+    cam.getWorldCoordinates(cursor, 1f, far);
+    origin.set(cam.getLocation());
+    direction.set(far.subtractLocal(near).normalizeLocal());
+    scene.handleMouseMove(cursor, ray);
+  }
+}
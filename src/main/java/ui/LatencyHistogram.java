@@ -0,0 +1,127 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds with logarithmic buckets: each power of two is split into SUB_BUCKETS
+ * buckets, so percentiles are reported with a relative error of at most 1 / SUB_BUCKETS. Recording is lock-free
+ * and does not allocate, the statistics can be read concurrently from other threads.
+ */
+class LatencyHistogram {
+
+  /**
+   * Buckets per power of two (power of two).
+   */
+  static final int SUB_BUCKETS = 8;
+
+  private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+  private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong count = new AtomicLong(), total = new AtomicLong(), max = new AtomicLong();
+
+  /**
+   * Record a duration, negative durations are counted as 0.
+   */
+  public void record(long nanos) {
+    nanos = Math.max(0, nanos);
+    buckets.incrementAndGet(bucketIndex(nanos));
+    count.incrementAndGet();
+    total.addAndGet(nanos);
+    long currentMax = max.get();
+    while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+      currentMax = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long n = count.get();
+    return n == 0 ? 0 : (double) total.get() / n;
+  }
+
+  /**
+   * Duration below which the fraction p (in [0, 1]) of the recorded durations lie, 0 if nothing was recorded.
+   * Reports the middle of the bucket, but never more than the maximum.
+   */
+  public long getPercentile(double p) {
+    Validate.isTrue(p >= 0 && p <= 1, "percentile must be in [0, 1]");
+    long[] snapshot = new long[BUCKET_COUNT];
+    long n = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = buckets.get(i);
+      n += snapshot[i];
+    }
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(p * n));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        long lower = bucketLowerBound(i);
+        long middle = lower + (bucketLowerBound(i + 1) - 1 - lower) / 2;
+        return Math.min(middle, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Clear the statistics. Durations recorded concurrently may be lost or partially counted.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    total.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Values below SUB_BUCKETS have their own bucket, larger values are split by their highest bit and the
+   * SUB_BUCKET_BITS bits below it.
+   */
+  static int bucketIndex(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Smallest value in the bucket, inverse of bucketIndex().
+   */
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    if (exponent >= 63) {
+      return Long.MAX_VALUE;
+    }
+    return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+}
@@ -0,0 +1,258 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.instancing.InstancedGeometry;
+import com.jme3.scene.mesh.IndexBuffer;
+import shape3d.Ray3D;
+import ui.spatial.TriangleBvh;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Ray picking against the triangles of a scene graph, e.g. in Scene3D.handlePicking(). A bounding volume
+ * hierarchy is built for each mesh on first use and cached. The rays are transformed into the model space of the
+ * geometries, so moving geometries do not require updates. After changing the vertex positions of a mesh, call
+ * refit(), after changing its triangles, call invalidate(). DynamicMesh.update() does this for the shared
+ * instance (getInstance(), Scene3D.getPicking()).
+ * <p>
+ * Use on the jMonkey thread, the scene graph must be up to date (updateGeometricState()).
+ */
+public class PickingService {
+
+  private static final PickingService instance = new PickingService();
+
+  /**
+   * Picked triangle.
+   */
+  public static class PickResult {
+    private final Geometry geometry;
+    private final int triangle;
+    private final float distance, u, v;
+    private final Vector3f point;
+
+    private PickResult(Geometry geometry, TriangleBvh.Hit hit, Ray ray) {
+      this.geometry = geometry;
+      this.triangle = hit.getTriangle();
+      this.distance = hit.getDistance();
+      this.u = hit.getU();
+      this.v = hit.getV();
+      this.point = ray.getDirection().mult(distance).addLocal(ray.getOrigin());
+    }
+
+    public Geometry getGeometry() {
+      return geometry;
+    }
+
+    /**
+     * Index of the triangle in the index buffer of the mesh.
+     */
+    public int getTriangle() {
+      return triangle;
+    }
+
+    /**
+     * Distance along the ray (world coordinates, for a normalized ray direction).
+     */
+    public float getDistance() {
+      return distance;
+    }
+
+    /**
+     * Barycentric coordinates of the hit point: a * w + b * u + c * v for the triangle corners a, b, c.
+     */
+    public float getU() {
+      return u;
+    }
+
+    public float getV() {
+      return v;
+    }
+
+    public float getW() {
+      return 1 - u - v;
+    }
+
+    /**
+     * Hit point in world coordinates.
+     */
+    public Vector3f getPoint() {
+      return point;
+    }
+  }
+
+  /**
+   * Hierarchies per mesh, meshes are compared by identity.
+   */
+  private final Map<Mesh, TriangleBvh> hierarchies = new WeakHashMap<>();
+
+  /**
+   * Scratch objects for the ray transformation.
+   */
+  private final Matrix4f worldToModel = new Matrix4f();
+  private final Vector3f modelOrigin = new Vector3f(), modelDirection = new Vector3f();
+  private final TriangleBvh.Hit hit = new TriangleBvh.Hit();
+  private final List<TriangleBvh.Hit> hits = new ArrayList<>();
+  private final Ray scratchRay = new Ray();
+
+  /**
+   * Shared instance, used by the scenes (Scene3D.getPicking()) and kept up to date by DynamicMesh.
+   */
+  public static PickingService getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the nearest triangle below root hit by the ray, null if nothing is hit.
+   */
+  public PickResult pick(Spatial root, Ray ray) {
+    PickResult[] nearest = new PickResult[1];
+    visit(root, ray, nearest, null);
+    return nearest[0];
+  }
+
+  /**
+   * Returns the nearest triangle below root hit by the ray (e.g. from Scene3D.handleMouseMove()), null if nothing
+   * is hit.
+   */
+  public PickResult pick(Spatial root, Ray3D ray) {
+    return pick(root, toRay(ray));
+  }
+
+  /**
+   * Returns all triangles below root hit by the ray, ordered by distance.
+   */
+  public List<PickResult> pickAll(Spatial root, Ray ray) {
+    List<PickResult> results = new ArrayList<>();
+    visit(root, ray, null, results);
+    results.sort(Comparator.comparingDouble(PickResult::getDistance));
+    return results;
+  }
+
+  /**
+   * Returns all triangles below root hit by the ray, ordered by distance.
+   */
+  public List<PickResult> pickAll(Spatial root, Ray3D ray) {
+    return pickAll(root, toRay(ray));
+  }
+
+  /**
+   * Update the hierarchy of the mesh after its vertex positions changed (same triangles).
+   */
+  public void refit(Mesh mesh) {
+    TriangleBvh bvh = hierarchies.get(mesh);
+    if (bvh == null) {
+      return;
+    }
+    FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+    if (positions.limit() != bvh.getPositions().length) {
+      invalidate(mesh);
+      return;
+    }
+    positions.duplicate().rewind().get(bvh.getPositions());
+    bvh.refit();
+  }
+
+  /**
+   * Drop the hierarchy of the mesh, it is rebuilt on the next query.
+   */
+  public void invalidate(Mesh mesh) {
+    hierarchies.remove(mesh);
+  }
+
+  public void clear() {
+    hierarchies.clear();
+  }
+
+  private Ray toRay(Ray3D ray) {
+    scratchRay.setOrigin(ray.getPoint());
+    scratchRay.setDirection(ray.getDirection());
+    return scratchRay;
+  }
+
+  private void visit(Spatial spatial, Ray ray, PickResult[] nearest, List<PickResult> all) {
+    if (spatial.getWorldBound() != null && !spatial.getWorldBound().intersects(ray)) {
+      return;
+    }
+    if (spatial instanceof Node) {
+      for (Spatial child : ((Node) spatial).getChildren()) {
+        visit(child, ray, nearest, all);
+      }
+    } else if (spatial instanceof Geometry && !(spatial instanceof InstancedGeometry)) {
+      // Instances are picked via their (grouped) geometries
+      Geometry geometry = (Geometry) spatial;
+      TriangleBvh bvh = getHierarchy(geometry.getMesh());
+      if (bvh == null) {
+        return;
+      }
+      // Model space ray with the same parameterization as the world space ray
+      geometry.getWorldMatrix().invert(worldToModel);
+      worldToModel.mult(ray.getOrigin(), modelOrigin);
+      worldToModel.multNormal(ray.getDirection(), modelDirection);
+      float maxDistance = ray.getLimit();
+      if (nearest != null) {
+        if (nearest[0] != null) {
+          maxDistance = Math.min(maxDistance, nearest[0].getDistance());
+        }
+        if (bvh.intersectNearest(modelOrigin.x, modelOrigin.y, modelOrigin.z,
+                modelDirection.x, modelDirection.y, modelDirection.z, maxDistance, hit)) {
+          nearest[0] = new PickResult(geometry, hit, ray);
+        }
+      } else {
+        hits.clear();
+        bvh.intersectAll(modelOrigin.x, modelOrigin.y, modelOrigin.z,
+                modelDirection.x, modelDirection.y, modelDirection.z, maxDistance, hits);
+        for (TriangleBvh.Hit h : hits) {
+          all.add(new PickResult(geometry, h, ray));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the (cached) hierarchy of the mesh, null for meshes without triangles.
+   */
+  private TriangleBvh getHierarchy(Mesh mesh) {
+    if (mesh == null || mesh.getMode() != Mesh.Mode.Triangles
+            || mesh.getBuffer(VertexBuffer.Type.Position) == null) {
+      return null;
+    }
+    return hierarchies.computeIfAbsent(mesh, PickingService::build);
+  }
+
+  private static TriangleBvh build(Mesh mesh) {
+    FloatBuffer positionBuffer = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+    float[] positions = new float[positionBuffer.limit()];
+    positionBuffer.duplicate().rewind().get(positions);
+    int[] indices;
+    IndexBuffer indexBuffer = mesh.getIndexBuffer();
+    if (indexBuffer != null) {
+      indices = new int[indexBuffer.size() / 3 * 3];
+      for (int i = 0; i < indices.length; i++) {
+        indices[i] = indexBuffer.get(i);
+      }
+    } else {
+      indices = new int[positions.length / 9 * 3];
+      for (int i = 0; i < indices.length; i++) {
+        indices[i] = i;
+      }
+    }
+    return new TriangleBvh(positions, indices);
+  }
+}
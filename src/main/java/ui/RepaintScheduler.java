@@ -0,0 +1,127 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.swing.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drives the animation and repainting of all 2D scenes from a single timer thread. Each tick posts at most one
+ * frame to the event dispatch thread, in which all registered scenes are updated and repainted. A new frame is
+ * only posted when the previous one is finished, so repaint requests are coalesced and slow paints reduce the
+ * frame rate instead of queueing up. Scenes which are not showing are dropped until they are shown again.
+ */
+public class RepaintScheduler {
+
+  private static final RepaintScheduler instance = new RepaintScheduler();
+
+  /**
+   * Scenes which are animated or requested a repaint.
+   */
+  private final Set<Scene2D> scenes = ConcurrentHashMap.newKeySet();
+
+  /**
+   * A frame is posted to the event dispatch thread and not finished yet.
+   */
+  private final AtomicBoolean framePending = new AtomicBoolean(false);
+
+  /**
+   * Timer thread, created on first use.
+   */
+  private ScheduledExecutorService executor;
+
+  /**
+   * Currently scheduled tick task.
+   */
+  private ScheduledFuture<?> ticker;
+
+  /**
+   * Maximum number of frames per second.
+   */
+  private int maxFrameRate = 60;
+
+  private RepaintScheduler() {
+  }
+
+  public static RepaintScheduler getInstance() {
+    return instance;
+  }
+
+  /**
+   * Set the maximum number of frames per second for all 2D scenes.
+   */
+  public synchronized void setMaxFrameRate(int maxFrameRate) {
+    Validate.isTrue(maxFrameRate > 0, "frame rate must be positive");
+    this.maxFrameRate = maxFrameRate;
+    if (ticker != null) {
+      ticker.cancel(false);
+      ticker = null;
+      ensureRunning();
+    }
+  }
+
+  public synchronized int getMaxFrameRate() {
+    return maxFrameRate;
+  }
+
+  /**
+   * Schedule the scene for the next frame.
+   */
+  void schedule(Scene2D scene) {
+    scenes.add(scene);
+    ensureRunning();
+  }
+
+  /**
+   * Remove the scene from the next frames, e.g. when it is removed from the user interface.
+   */
+  void unschedule(Scene2D scene) {
+    scenes.remove(scene);
+  }
+
+  private synchronized void ensureRunning() {
+    if (executor == null) {
+      executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Scene2D repaint scheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    if (ticker == null) {
+      long period = 1_000_000_000L / maxFrameRate;
+      ticker = executor.scheduleAtFixedRate(this::tick, 0, period, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Timer thread: post a frame unless the last one is still pending.
+   */
+  private void tick() {
+    if (!scenes.isEmpty() && framePending.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(this::frame);
+    }
+  }
+
+  /**
+   * Event dispatch thread: update and repaint all scheduled scenes.
+   */
+  private void frame() {
+    try {
+      long now = System.nanoTime();
+      scenes.removeIf(scene -> !scene.runFrame(now));
+    } finally {
+      framePending.set(false);
+    }
+  }
+}
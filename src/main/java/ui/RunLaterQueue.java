@@ -0,0 +1,105 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import misc.Logger;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tasks which are enqueued by arbitrary threads and run by the render thread. Enqueuing is lock-free, so producers
+ * never wait for running tasks. Each drain runs tasks in order until the time budget is used up, remaining tasks
+ * are run in the next drain.
+ */
+class RunLaterQueue {
+
+  /**
+   * Default time budget per drain.
+   */
+  private static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+  /**
+   * An enqueued task is its own future, so enqueuing only allocates one object.
+   */
+  private static class Task extends CompletableFuture<Void> {
+    private final Runnable runnable;
+
+    private Task(Runnable runnable) {
+      this.runnable = runnable;
+    }
+
+    private void run() {
+      // Tasks cancelled (or completed) by the producer are skipped
+      if (isDone()) {
+        return;
+      }
+      try {
+        runnable.run();
+        complete(null);
+      } catch (Exception e) {
+        completeExceptionally(e);
+        Logger.getInstance().exception("runLater task failed", e);
+      }
+    }
+  }
+
+  private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+
+  private volatile long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+  /**
+   * Enqueue the task, can be called from any thread.
+   *
+   * @return Completed after the task has run, completed exceptionally if the task threw an exception. Cancelling
+   * the future before the task has started skips the task.
+   */
+  public CompletableFuture<Void> add(Runnable task) {
+    Validate.notNull(task, "task must not be null");
+    Task entry = new Task(task);
+    tasks.add(entry);
+    return entry;
+  }
+
+  /**
+   * Run the enqueued tasks in order until the time budget is used up. At least one task is run per call, so the
+   * queue always makes progress. Tasks enqueued by running tasks are run in the same drain if the budget allows.
+   *
+   * @return Number of tasks run.
+   */
+  public int drain() {
+    long deadline = System.nanoTime() + budgetNanos;
+    int count = 0;
+    Task task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+      count++;
+      if (System.nanoTime() - deadline >= 0) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return tasks.isEmpty();
+  }
+
+  /**
+   * Set the time budget per drain.
+   */
+  public void setBudget(long time, TimeUnit unit) {
+    Validate.isTrue(time > 0, "time budget must be positive");
+    budgetNanos = unit.toNanos(time);
+  }
+
+  public long getBudget(TimeUnit unit) {
+    return unit.convert(budgetNanos, TimeUnit.NANOSECONDS);
+  }
+}
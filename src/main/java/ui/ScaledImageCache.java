@@ -0,0 +1,310 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.apache.commons.lang3.Validate;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of scaled images. Drawing an image at a size different from its own size resamples
+ * the image on every call, drawing the cached scaled copy is a plain (accelerated) copy. Strong minification uses
+ * a mipmap chain: the image is halved repeatedly before the final resampling step, which avoids aliasing.
+ * The cache is limited by the memory used by the scaled copies and does not keep the source images alive: the
+ * copies of collected images are dropped. Shared by all scenes, thread-safe, images are scaled outside of the
+ * lock.
+ * <p>
+ * The cache cannot detect changes to the pixels of a source image: call invalidate() after modifying an image
+ * which has been drawn before.
+ */
+public class ScaledImageCache {
+
+  /**
+   * Default memory limit of the scaled images in bytes.
+   */
+  private static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+  private static final ScaledImageCache instance = new ScaledImageCache(DEFAULT_MAX_BYTES);
+
+  /**
+   * Cache key: source image (by identity), target size and interpolation. Stored keys only reference the source
+   * image weakly, the lookup key references it strongly.
+   */
+  private static class Key {
+    private ImageReference imageReference;
+    private Image image;
+    private int hash;
+    private int width, height;
+    private Object interpolation;
+
+    private Key set(Image image, int width, int height, Object interpolation) {
+      this.image = image;
+      this.width = width;
+      this.height = height;
+      this.interpolation = interpolation;
+      hash = 31 * (31 * (31 * System.identityHashCode(image) + width) + height) + interpolation.hashCode();
+      return this;
+    }
+
+    /**
+     * Returns a copy of the lookup key which can be stored in the cache.
+     */
+    private Key store(ReferenceQueue<Image> queue) {
+      Key key = new Key();
+      key.imageReference = new ImageReference(image, queue, key);
+      key.hash = hash;
+      key.width = width;
+      key.height = height;
+      key.interpolation = interpolation;
+      return key;
+    }
+
+    private Image getImage() {
+      return image != null ? image : imageReference.get();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        // Also finds stored keys whose image was collected
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      Image image = getImage();
+      return image != null && image == key.getImage() && width == key.width && height == key.height
+              && interpolation.equals(key.interpolation);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Weak reference to a source image which knows its stored key, so the entry can be removed once the image has
+   * been collected.
+   */
+  private static class ImageReference extends WeakReference<Image> {
+    private final Key key;
+
+    private ImageReference(Image image, ReferenceQueue<Image> queue, Key key) {
+      super(image, queue);
+      this.key = key;
+    }
+  }
+
+  private final Map<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * References of collected source images, their entries are purged on insert.
+   */
+  private final ReferenceQueue<Image> collectedImages = new ReferenceQueue<>();
+
+  /**
+   * Reused lookup key, guarded by the cache lock.
+   */
+  private final Key lookupKey = new Key();
+
+  /**
+   * Memory limit and current memory usage of the scaled images in bytes.
+   */
+  private final long maxBytes;
+  private long bytes;
+
+  public ScaledImageCache(long maxBytes) {
+    Validate.isTrue(maxBytes > 0, "maxBytes must be positive");
+    this.maxBytes = maxBytes;
+  }
+
+  public static ScaledImageCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Draw the image scaled to width x height at (x, y) (user space of gc). Uses the interpolation rendering hint
+   * of gc. The scaled copy is created for the device resolution of gc, so it is blitted without further
+   * resampling.
+   */
+  public void drawImage(Graphics gc, Image image, int x, int y, int width, int height) {
+    if (width <= 0 || height <= 0) {
+      return;
+    }
+    if (!(gc instanceof Graphics2D)) {
+      gc.drawImage(image, x, y, width, height, null);
+      return;
+    }
+    Graphics2D g2d = (Graphics2D) gc;
+    int deviceWidth = width, deviceHeight = height;
+    AffineTransform transform = g2d.getTransform();
+    if (transform.getShearX() == 0 && transform.getShearY() == 0) {
+      deviceWidth = Math.max(1, (int) Math.round(width * Math.abs(transform.getScaleX())));
+      deviceHeight = Math.max(1, (int) Math.round(height * Math.abs(transform.getScaleY())));
+    }
+    BufferedImage scaled = getScaled(image, deviceWidth, deviceHeight,
+            g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION), g2d.getDeviceConfiguration());
+    g2d.drawImage(scaled != null ? scaled : image, x, y, width, height, null);
+  }
+
+  /**
+   * Returns the (cached) copy of the image scaled to width x height.
+   *
+   * @param interpolation Value of the interpolation rendering hint, null for nearest neighbor.
+   * @param configuration The scaled copy is compatible with this configuration, may be null.
+   * @return null if the image does not need to be scaled (same size or unknown size) or is too large to be cached.
+   */
+  public BufferedImage getScaled(Image image, int width, int height, Object interpolation,
+                                 GraphicsConfiguration configuration) {
+    Validate.isTrue(width > 0 && height > 0, "size must be positive");
+    int sourceWidth = image.getWidth(null);
+    int sourceHeight = image.getHeight(null);
+    long imageBytes = 4L * width * height;
+    if (sourceWidth <= 0 || sourceHeight <= 0 || imageBytes > maxBytes
+            || (sourceWidth == width && sourceHeight == height)) {
+      return null;
+    }
+    if (interpolation == null) {
+      interpolation = RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+    }
+    synchronized (images) {
+      try {
+        BufferedImage scaled = images.get(lookupKey.set(image, width, height, interpolation));
+        if (scaled != null) {
+          return scaled;
+        }
+      } finally {
+        lookupKey.image = null;
+      }
+    }
+    // Scale outside of the lock, so other threads are not blocked by a cache miss
+    BufferedImage scaled = scale(image, sourceWidth, sourceHeight, width, height, interpolation, configuration);
+    synchronized (images) {
+      try {
+        // Keep the copy of another thread which scaled the same image in the meantime
+        BufferedImage cached = images.get(lookupKey.set(image, width, height, interpolation));
+        if (cached != null) {
+          return cached;
+        }
+        purgeCollected();
+        images.put(lookupKey.store(collectedImages), scaled);
+        bytes += imageBytes;
+        evict();
+        return scaled;
+      } finally {
+        lookupKey.image = null;
+      }
+    }
+  }
+
+  /**
+   * Remove all scaled copies of the image, required after the pixels of the image have been modified.
+   */
+  public void invalidate(Image image) {
+    synchronized (images) {
+      Iterator<Map.Entry<Key, BufferedImage>> it = images.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Key, BufferedImage> entry = it.next();
+        Image source = entry.getKey().getImage();
+        if (source == null || source == image) {
+          bytes -= bytesOf(entry.getValue());
+          it.remove();
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (images) {
+      images.clear();
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Memory used by the scaled images in bytes.
+   */
+  public long getMemoryUsage() {
+    synchronized (images) {
+      return bytes;
+    }
+  }
+
+  /**
+   * Remove the entries of collected source images (cache lock held).
+   */
+  private void purgeCollected() {
+    Reference<? extends Image> reference;
+    while ((reference = collectedImages.poll()) != null) {
+      BufferedImage scaled = images.remove(((ImageReference) reference).key);
+      if (scaled != null) {
+        bytes -= bytesOf(scaled);
+      }
+    }
+  }
+
+  /**
+   * Remove least recently used images until the memory limit is met.
+   */
+  private void evict() {
+    Iterator<BufferedImage> it = images.values().iterator();
+    while (bytes > maxBytes && it.hasNext()) {
+      bytes -= bytesOf(it.next());
+      it.remove();
+    }
+  }
+
+  private static long bytesOf(BufferedImage image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  /**
+   * Scale the image. For smooth interpolation, the image is first halved (bilinear, averages 2x2 pixels) until
+   * it is less than twice the target size.
+   */
+  private static BufferedImage scale(Image image, int sourceWidth, int sourceHeight, int width, int height,
+                                     Object interpolation, GraphicsConfiguration configuration) {
+    Image level = image;
+    int levelWidth = sourceWidth, levelHeight = sourceHeight;
+    if (interpolation != RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR) {
+      while (levelWidth >= 2 * width || levelHeight >= 2 * height) {
+        levelWidth = levelWidth >= 2 * width ? levelWidth / 2 : levelWidth;
+        levelHeight = levelHeight >= 2 * height ? levelHeight / 2 : levelHeight;
+        BufferedImage next = new BufferedImage(levelWidth, levelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        resample(level, next, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        level = next;
+      }
+    }
+    BufferedImage scaled;
+    if (configuration != null) {
+      int transparency = image instanceof Transparency ? ((Transparency) image).getTransparency()
+              : Transparency.TRANSLUCENT;
+      scaled = configuration.createCompatibleImage(width, height, transparency);
+    } else {
+      scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+    resample(level, scaled, interpolation);
+    return scaled;
+  }
+
+  private static void resample(Image source, BufferedImage target, Object interpolation) {
+    Graphics2D gc = target.createGraphics();
+    gc.setComposite(AlphaComposite.Src);
+    gc.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+    gc.drawImage(source, 0, 0, target.getWidth(), target.getHeight(), null);
+    gc.dispose();
+  }
+}
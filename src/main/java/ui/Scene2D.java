@@ -5,11 +5,19 @@
 package ui;
 
 import com.jme3.math.Vector2f;
+import ui.raster.TileRasterizer;
+import ui.spatial.SpatialIndex;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
 import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Base scene canvas class for all 2D implementations.
@@ -18,6 +26,42 @@ public abstract class Scene2D extends JPanel {
 
     protected static final int POINT_SIZE = 6;
 
+    /**
+     * Maximum number of pre-rendered point markers (one per color).
+     */
+    private static final int MAX_POINT_MARKERS = 64;
+
+    /**
+     * Id of the static layer used for the coordinate system axis.
+     */
+    private static final String AXIS_LAYER = "axis";
+
+    /**
+     * Primitives are clipped against the visible area extended by this margin (in pixels), so that no clipping
+     * artifacts become visible.
+     */
+    private static final int GUARD_BAND = 8;
+
+    /**
+     * Dirty regions are extended by this margin (in pixels) to cover line widths and point markers.
+     */
+    private static final int DIRTY_REGION_MARGIN = POINT_SIZE + 2;
+
+    /**
+     * Maximum distance (in pixels) between a curve and its flattened polyline.
+     */
+    private static final float CURVE_FLATNESS = 0.25f;
+
+    /**
+     * Minimum distance between two axis ticks in pixels.
+     */
+    private static final int MIN_TICK_SPACING = 60;
+
+    /**
+     * Half length of an axis tick and size of the axis arrows in pixels.
+     */
+    private static final int TICK_SIZE = 5, ARROW_LENGTH = 10, ARROW_WIDTH = 5;
+
     /**
      * Lower left corner in world coordinates.
      */
@@ -33,11 +77,105 @@ public abstract class Scene2D extends JPanel {
      */
     protected Vector2f lastMousePosition;
 
+    /**
+     * Cached world -> pixel transform: pixel = (x * scale + offsetX, offsetY - y * scale).
+     */
+    private float transformScale, transformOffsetX, transformOffsetY;
+
+    /**
+     * Component size the cached transform was computed for, -1 if the transform is invalid.
+     */
+    private int transformWidth = -1, transformHeight = -1;
+
+    /**
+     * Tick layout of the axis for the cached transform, null if it must be recomputed.
+     */
+    private AxisTicks xTicks, yTicks;
+
+    /**
+     * Scratch buffers for pixel coordinates, reused between the draw calls.
+     */
+    private int[] xScratch = new int[0], yScratch = new int[0];
+
+    /**
+     * Scratch buffer for pixel coordinates as (x, y) pairs.
+     */
+    private float[] pixelScratch = new float[0];
+
+    /**
+     * Clips the primitives against the visible area, see prepareDrawing().
+     */
+    private final ViewportClipper clipper = new ViewportClipper();
+
+    /**
+     * Scratch rectangle for the clip bounds.
+     */
+    private final Rectangle clipBounds = new Rectangle();
+
+    /**
+     * Scratch vectors for the hit-testing.
+     */
+    private final Vector2f pickScratch = new Vector2f(), pickScratch2 = new Vector2f();
+
+    /**
+     * Fixed timestep clock of the animation, null if the scene is not animated.
+     */
+    private volatile AnimationClock animationClock;
+
+    /**
+     * The scene is repainted in the next frame of the repaint scheduler.
+     */
+    private volatile boolean repaintRequested;
+
+    /**
+     * Union of the changed world space regions since the last frame, see repaintWorldRegion().
+     */
+    private float dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+    private boolean hasDirtyRegion;
+    private final Object dirtyRegionLock = new Object();
+
+    /**
+     * Scratch rectangle for the dirty region in pixels.
+     */
+    private final Rectangle dirtyPixels = new Rectangle();
+
+    /**
+     * Parallel software rasterizer with the size of the component, created on first use.
+     */
+    private TileRasterizer rasterizer;
+
+    /**
+     * Scratch curve for drawCubicCurve().
+     */
+    private final CubicCurve2D.Float curveScratch = new CubicCurve2D.Float();
+
+    /**
+     * Scratch path for the batched line drawing.
+     */
+    private final Path2D.Float pathScratch = new Path2D.Float();
+
+    /**
+     * Pre-rendered point markers (see drawPoint()) per fill color.
+     */
+    private final Map<Color, BufferedImage> pointMarkers = new HashMap<>();
+
+    /**
+     * Retained images of the static content, see drawStaticLayer().
+     */
+    private final Map<String, CachedLayer> staticLayers = new HashMap<>();
+
     public Scene2D(int width, int height, Vector2f ll, Vector2f ur) {
         setSize(width, height);
         setPreferredSize(new Dimension(width, height));
         lastMousePosition = null;
         setRenderArea(ll, ur);
+        // Hidden scenes are dropped by the repaint scheduler, resume the animation when shown again
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()
+                    && animationClock != null) {
+                RepaintScheduler.getInstance().schedule(this);
+            }
+        });
     }
 
     /**
@@ -58,11 +196,189 @@ public abstract class Scene2D extends JPanel {
     public abstract String getTitle();
 
     /**
-     * Set the displayed render area.
+     * Advance the simulation state by dt seconds. Once the animation is started, this method is called at a fixed
+     * rate on the event dispatch thread before the scene is painted. Use getInterpolation() in paint() to
+     * interpolate between the last two states.
+     */
+    protected void update(double dt) {
+        // Default: nothing to animate
+    }
+
+    /**
+     * Start the animation: update() is called updatesPerSecond times per second and the scene is repainted in
+     * every frame of the repaint scheduler.
+     */
+    public void startAnimation(double updatesPerSecond) {
+        if (updatesPerSecond <= 0) {
+            throw new IllegalArgumentException("updatesPerSecond must be positive");
+        }
+        animationClock = new AnimationClock(updatesPerSecond);
+        RepaintScheduler.getInstance().schedule(this);
+    }
+
+    public void stopAnimation() {
+        animationClock = null;
+    }
+
+    @Override
+    public void removeNotify() {
+        RepaintScheduler.getInstance().unschedule(this);
+        super.removeNotify();
+    }
+
+    public boolean isAnimated() {
+        return animationClock != null;
+    }
+
+    /**
+     * Fraction of the next simulation step already elapsed, in [0, 1). 0 if the scene is not animated.
+     */
+    protected float getInterpolation() {
+        AnimationClock clock = animationClock;
+        return clock != null ? clock.getInterpolation() : 0;
+    }
+
+    /**
+     * Measured frame rate of the animation, 0 if the scene is not animated.
+     */
+    public double getFramesPerSecond() {
+        AnimationClock clock = animationClock;
+        return clock != null ? clock.getFramesPerSecond() : 0;
+    }
+
+    /**
+     * Request a repaint in the next frame of the repaint scheduler. Can be called from any thread, multiple
+     * requests within one frame are coalesced.
+     */
+    public void requestRepaint() {
+        repaintRequested = true;
+        RepaintScheduler.getInstance().schedule(this);
+    }
+
+    /**
+     * Request a repaint of the changed world space region spanned by min and max in the next frame of the
+     * repaint scheduler. Only the union of the changed regions is cleared and repainted: paint() is called with
+     * the clip set to that area, and the drawing helpers skip primitives outside of it. Can be called from any
+     * thread.
+     */
+    public void repaintWorldRegion(Vector2f min, Vector2f max) {
+        synchronized (dirtyRegionLock) {
+            float minX = Math.min(min.x, max.x), minY = Math.min(min.y, max.y);
+            float maxX = Math.max(min.x, max.x), maxY = Math.max(min.y, max.y);
+            if (hasDirtyRegion) {
+                dirtyMinX = Math.min(dirtyMinX, minX);
+                dirtyMinY = Math.min(dirtyMinY, minY);
+                dirtyMaxX = Math.max(dirtyMaxX, maxX);
+                dirtyMaxY = Math.max(dirtyMaxY, maxY);
+            } else {
+                dirtyMinX = minX;
+                dirtyMinY = minY;
+                dirtyMaxX = maxX;
+                dirtyMaxY = maxY;
+                hasDirtyRegion = true;
+            }
+        }
+        RepaintScheduler.getInstance().schedule(this);
+    }
+
+    /**
+     * Update and repaint the scene for a frame of the repaint scheduler (event dispatch thread).
+     *
+     * @return true if the scene needs further frames.
+     */
+    boolean runFrame(long nowNanos) {
+        AnimationClock clock = animationClock;
+        if (!isShowing()) {
+            // Closed or hidden: no updates, the animation continues when the scene is shown again
+            if (clock != null) {
+                clock.pause();
+            }
+            repaintRequested = false;
+            takeDirtyRegion(dirtyPixels);
+            return false;
+        }
+        if (clock != null) {
+            int steps = clock.advance(nowNanos);
+            for (int i = 0; i < steps; i++) {
+                update(clock.getStep());
+            }
+            repaintRequested = true;
+        }
+        boolean dirty = takeDirtyRegion(dirtyPixels);
+        if (repaintRequested) {
+            repaintRequested = false;
+            paintImmediately(0, 0, getWidth(), getHeight());
+        } else if (dirty) {
+            paintImmediately(dirtyPixels);
+        }
+        synchronized (dirtyRegionLock) {
+            return animationClock != null || repaintRequested || hasDirtyRegion;
+        }
+    }
+
+    /**
+     * Write the pixel bounds of the accumulated dirty region to pixels and reset the dirty region.
+     *
+     * @return false if there is no dirty region.
+     */
+    private boolean takeDirtyRegion(Rectangle pixels) {
+        float minX, minY, maxX, maxY;
+        synchronized (dirtyRegionLock) {
+            if (!hasDirtyRegion) {
+                return false;
+            }
+            minX = dirtyMinX;
+            minY = dirtyMinY;
+            maxX = dirtyMaxX;
+            maxY = dirtyMaxY;
+            hasDirtyRegion = false;
+        }
+        validateTransform();
+        // Clamp to the component before the conversion to int: the region may be far off-screen
+        float left = Math.max(world2PixelX(minX) - DIRTY_REGION_MARGIN, 0);
+        float right = Math.min(world2PixelX(maxX) + DIRTY_REGION_MARGIN, getWidth());
+        float top = Math.max(world2PixelY(maxY) - DIRTY_REGION_MARGIN, 0);
+        float bottom = Math.min(world2PixelY(minY) + DIRTY_REGION_MARGIN, getHeight());
+        pixels.setBounds((int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(right - Math.floor(left)), (int) Math.ceil(bottom - Math.floor(top)));
+        return pixels.width > 0 && pixels.height > 0;
+    }
+
+    /**
+     * Set the displayed render area. The corners are copied, later changes of the arguments have no effect.
      */
     public void setRenderArea(Vector2f ll, Vector2f ur) {
-        this.ll = ll;
-        this.ur = ur;
+        this.ll = ll.clone();
+        this.ur = ur.clone();
+        invalidateTransform();
+        invalidateStaticLayers();
+    }
+
+    /**
+     * Draw static content. The painter is only invoked if the layer with the given id has not been rendered yet
+     * or became invalid (render area or component size changed, invalidateStaticLayers() was called). Otherwise
+     * the cached image of the layer is composited.
+     */
+    protected void drawStaticLayer(Graphics2D gc, String layerId, Consumer<Graphics2D> painter) {
+        staticLayers.computeIfAbsent(layerId, id -> new CachedLayer())
+                .draw(gc, getWidth(), getHeight(), painter);
+    }
+
+    /**
+     * The content of all static layers must be rendered again on the next paint.
+     */
+    public void invalidateStaticLayers() {
+        staticLayers.values().forEach(CachedLayer::invalidate);
+    }
+
+    /**
+     * The content of the static layer with the given id must be rendered again on the next paint.
+     */
+    public void invalidateStaticLayer(String layerId) {
+        CachedLayer layer = staticLayers.get(layerId);
+        if (layer != null) {
+            layer.invalidate();
+        }
     }
 
     public Scene2D(int width, int height) {
@@ -73,10 +389,24 @@ public abstract class Scene2D extends JPanel {
      * Draw a line from a to be using the given color.
      */
     protected void drawLine(Graphics gc, Vector2f a, Vector2f b, Color color) {
-        Vector2f a_ = world2Pixel(a);
-        Vector2f b_ = world2Pixel(b);
+        drawLine(gc, a.x, a.y, b.x, b.y, color);
+    }
+
+    /**
+     * Draw a line from (x0, y0) to (x1, y1) (world coordinates) using the given color.
+     */
+    protected void drawLine(Graphics gc, float x0, float y0, float x1, float y1, Color color) {
+        prepareDrawing(gc);
+        float[] segment = pixelScratch(4);
+        segment[0] = world2PixelX(x0);
+        segment[1] = world2PixelY(y0);
+        segment[2] = world2PixelX(x1);
+        segment[3] = world2PixelY(y1);
+        if (!clipper.clipSegment(segment)) {
+            return;
+        }
         gc.setColor(color);
-        gc.drawLine((int) a_.x, (int) a_.y, (int) b_.x, (int) b_.y);
+        gc.drawLine((int) segment[0], (int) segment[1], (int) segment[2], (int) segment[3]);
     }
 
     protected void drawPoly(Graphics gc, List<Vector2f> poly, Color lineColor) {
@@ -87,35 +417,67 @@ public abstract class Scene2D extends JPanel {
      * Draw a cubic curve using the given control points.
      */
     protected void drawCubicCurve(Graphics2D gc, Vector2f c0, Vector2f c1, Vector2f c2, Vector2f c3, Color color) {
-        CubicCurve2D curveShape = new CubicCurve2D.Float();
-        c0 = world2Pixel(c0);
-        c1 = world2Pixel(c1);
-        c2 = world2Pixel(c2);
-        c3 = world2Pixel(c3);
-        curveShape.setCurve(c0.x, c0.y, c1.x, c1.y, c2.x, c2.y, c3.x, c3.y);
+        validateTransform();
+        curveScratch.setCurve(world2PixelX(c0.x), world2PixelY(c0.y), world2PixelX(c1.x), world2PixelY(c1.y),
+                world2PixelX(c2.x), world2PixelY(c2.y), world2PixelX(c3.x), world2PixelY(c3.y));
+        gc.setColor(color);
+        gc.draw(curveScratch);
+    }
+
+    /**
+     * Draw a piecewise cubic curve. The curve is flattened adaptively to pixel accuracy, the flattened path is
+     * cached in the spline and only rebuilt if its control points, the render area or the size change.
+     */
+    protected void drawSpline(Graphics2D gc, SplinePath spline, Color color) {
+        validateTransform();
         gc.setColor(color);
-        gc.draw(curveShape);
+        gc.draw(spline.getFlattenedPath(transformScale, transformOffsetX, transformOffsetY, getWidth(), getHeight(),
+                CURVE_FLATNESS));
     }
 
     protected void drawPoly(Graphics gc, List<Vector2f> poly, Color lineColor, Color fillColor) {
-        int[] xPoints = new int[poly.size()];
-        int[] yPoints = new int[poly.size()];
-        for (int i = 0; i < poly.size(); i++) {
-            Vector2f p_ = world2Pixel(poly.get(i));
-            xPoints[i] = (int) p_.x;
-            yPoints[i] = (int) p_.y;
+        prepareDrawing(gc);
+        int n = poly.size();
+        float[] pixels = pixelScratch(2 * n);
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            Vector2f p = poly.get(i);
+            float x = world2PixelX(p.x);
+            float y = world2PixelY(p.y);
+            pixels[2 * i] = x;
+            pixels[2 * i + 1] = y;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        if (!clipper.intersects(minX, minY, maxX, maxY)) {
+            return;
+        }
+        if (!clipper.contains(minX, minY) || !clipper.contains(maxX, maxY)) {
+            // Partially visible: only rasterize the part in the (extended) visible area
+            n = clipper.clipPolygon(pixels, n);
+            pixels = clipper.getPolygon();
+        }
+        ensureScratchCapacity(n);
+        int[] xPoints = xScratch;
+        int[] yPoints = yScratch;
+        for (int i = 0; i < n; i++) {
+            xPoints[i] = (int) pixels[2 * i];
+            yPoints[i] = (int) pixels[2 * i + 1];
         }
 
         // Fill
         if (fillColor != null) {
             gc.setColor(fillColor);
-            gc.fillPolygon(xPoints, yPoints, poly.size());
+            gc.fillPolygon(xPoints, yPoints, n);
         }
 
         // Outline
         if (lineColor != null) {
             gc.setColor(lineColor);
-            gc.drawPolygon(xPoints, yPoints, poly.size());
+            gc.drawPolygon(xPoints, yPoints, n);
         }
     }
 
@@ -123,145 +485,408 @@ public abstract class Scene2D extends JPanel {
      * Draw a point at the posisition p using the given color.
      */
     protected void drawPoint(Graphics gc, Vector2f p, Color color) {
-        Vector2f pixelPoint = world2Pixel(p);
-        int x = (int) pixelPoint.x - POINT_SIZE / 2;
-        int y = (int) pixelPoint.y - POINT_SIZE / 2;
+        prepareDrawing(gc);
+        float pixelX = world2PixelX(p.x);
+        float pixelY = world2PixelY(p.y);
+        if (!clipper.contains(pixelX, pixelY)) {
+            return;
+        }
+        int x = (int) pixelX - POINT_SIZE / 2;
+        int y = (int) pixelY - POINT_SIZE / 2;
         gc.setColor(color);
         gc.fillArc(x, y, POINT_SIZE, POINT_SIZE, 0, 360);
         gc.setColor(Color.BLACK);
         gc.drawArc(x, y, POINT_SIZE, POINT_SIZE, 0, 360);
     }
 
+    /**
+     * Draw all points in xy, given as (x, y) pairs in world coordinates, using the given color. The points look
+     * like the ones drawn by drawPoint(), but are blitted from a pre-rendered marker image.
+     */
+    protected void drawPoints(Graphics gc, float[] xy, Color color) {
+        drawPoints(gc, xy, xy.length / 2, color);
+    }
+
+    /**
+     * Draw the first n points in xy, given as (x, y) pairs in world coordinates, using the given color.
+     */
+    protected void drawPoints(Graphics gc, float[] xy, int n, Color color) {
+        BufferedImage marker = getPointMarker(color);
+        prepareDrawing(gc);
+        for (int i = 0; i < n; i++) {
+            float pixelX = world2PixelX(xy[2 * i]);
+            float pixelY = world2PixelY(xy[2 * i + 1]);
+            if (clipper.contains(pixelX, pixelY)) {
+                gc.drawImage(marker, (int) pixelX - POINT_SIZE / 2, (int) pixelY - POINT_SIZE / 2, null);
+            }
+        }
+    }
+
+    /**
+     * Draw independent line segments using the given color. Each segment is given by four values
+     * (x0, y0, x1, y1) in world coordinates. All segments are drawn as a single path.
+     */
+    protected void drawSegments(Graphics2D gc, float[] xyxy, Color color) {
+        drawSegments(gc, xyxy, xyxy.length / 4, color);
+    }
+
+    /**
+     * Draw the first n line segments in xyxy using the given color.
+     */
+    protected void drawSegments(Graphics2D gc, float[] xyxy, int n, Color color) {
+        prepareDrawing(gc);
+        float[] segment = pixelScratch(4);
+        pathScratch.reset();
+        for (int i = 0; i < n; i++) {
+            segment[0] = world2PixelX(xyxy[4 * i]);
+            segment[1] = world2PixelY(xyxy[4 * i + 1]);
+            segment[2] = world2PixelX(xyxy[4 * i + 2]);
+            segment[3] = world2PixelY(xyxy[4 * i + 3]);
+            if (clipper.clipSegment(segment)) {
+                pathScratch.moveTo(segment[0], segment[1]);
+                pathScratch.lineTo(segment[2], segment[3]);
+            }
+        }
+        gc.setColor(color);
+        gc.draw(pathScratch);
+    }
+
+    /**
+     * Draw an open polyline through the points in xy, given as (x, y) pairs in world coordinates.
+     */
+    protected void drawPolyline(Graphics gc, float[] xy, Color color) {
+        drawPolyline(gc, xy, xy.length / 2, color);
+    }
+
+    /**
+     * Draw an open polyline through the first n points in xy using the given color. Only the visible parts are
+     * submitted and dense parts are decimated to pixel resolution, so the cost of the rasterization depends on the
+     * screen size rather than on the number of points.
+     */
+    protected void drawPolyline(Graphics gc, float[] xy, int n, Color color) {
+        prepareDrawing(gc);
+        gc.setColor(color);
+        clipper.beginPolyline(gc::drawPolyline);
+        for (int i = 0; i < n; i++) {
+            clipper.polylineTo(world2PixelX(xy[2 * i]), world2PixelY(xy[2 * i + 1]));
+        }
+        clipper.endPolyline();
+    }
+
+    /**
+     * Returns the pre-rendered point marker for the given fill color.
+     */
+    private BufferedImage getPointMarker(Color color) {
+        BufferedImage marker = pointMarkers.get(color);
+        if (marker == null) {
+            if (pointMarkers.size() >= MAX_POINT_MARKERS) {
+                pointMarkers.clear();
+            }
+            marker = new BufferedImage(POINT_SIZE + 1, POINT_SIZE + 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics markerGc = marker.getGraphics();
+            markerGc.setColor(color);
+            markerGc.fillArc(0, 0, POINT_SIZE, POINT_SIZE, 0, 360);
+            markerGc.setColor(Color.BLACK);
+            markerGc.drawArc(0, 0, POINT_SIZE, POINT_SIZE, 0, 360);
+            markerGc.dispose();
+            pointMarkers.put(color, marker);
+        }
+        return marker;
+    }
+
     /**
      * Draw a circle at the position p using the given color.
      */
     protected void drawCircle(Graphics gc, Vector2f p, float radius, Color color) {
-        Vector2f center = world2Pixel(p);
-        int r = (int) (getScale() * radius);
+        prepareDrawing(gc);
+        int r = (int) (transformScale * radius);
+        float centerX = world2PixelX(p.x);
+        float centerY = world2PixelY(p.y);
+        if (!clipper.intersects(centerX - r, centerY - r, centerX + r, centerY + r)) {
+            return;
+        }
         gc.setColor(color);
-        gc.drawArc((int) (center.x - r), (int) (center.y - r), r * 2, r * 2, 0, 360);
+        gc.drawArc((int) (centerX - r), (int) (centerY - r), r * 2, r * 2, 0, 360);
     }
 
     protected void drawText(Graphics2D g2d, String text, Vector2f p, Color color) {
-        Vector2f pPix = world2Pixel(p);
+        drawText(g2d, text, p.x, p.y, color);
+    }
+
+    /**
+     * Draw the text at the position (x, y) (world coordinates) using the given color. The shaped text is taken
+     * from the shared text cache.
+     */
+    protected void drawText(Graphics2D g2d, String text, float x, float y, Color color) {
+        validateTransform();
         g2d.setColor(color);
-        g2d.drawString(text, (int) pPix.x, (int) pPix.y);
+        TextCache.getInstance().drawString(g2d, text, (int) world2PixelX(x), (int) world2PixelY(y));
     }
 
     /**
      * World -> pixel coordinates.
      */
     protected Vector2f world2Pixel(Vector2f pWorld) {
-        return unit2Pixel(world2Unit(pWorld));
+        return world2Pixel(pWorld, new Vector2f());
+    }
+
+    /**
+     * World -> pixel coordinates, the result is written to store.
+     *
+     * @return store
+     */
+    protected Vector2f world2Pixel(Vector2f pWorld, Vector2f store) {
+        validateTransform();
+        return store.set(world2PixelX(pWorld.x), world2PixelY(pWorld.y));
+    }
+
+    /**
+     * World -> pixel coordinates for n points. The input contains the points as (x, y) pairs.
+     */
+    protected void world2Pixel(float[] xyIn, int[] xOut, int[] yOut, int n) {
+        validateTransform();
+        for (int i = 0; i < n; i++) {
+            xOut[i] = (int) world2PixelX(xyIn[2 * i]);
+            yOut[i] = (int) world2PixelY(xyIn[2 * i + 1]);
+        }
     }
 
     /**
      * Pixel coordinates -> world coordinates.
      */
     protected Vector2f pixel2World(Vector2f pPixel) {
-        return unit2World(pixel2Unit(pPixel));
+        return pixel2World(pPixel, new Vector2f());
+    }
+
+    /**
+     * Pixel coordinates -> world coordinates, the result is written to store.
+     *
+     * @return store
+     */
+    protected Vector2f pixel2World(Vector2f pPixel, Vector2f store) {
+        validateTransform();
+        return store.set((pPixel.x - transformOffsetX) / transformScale,
+                (transformOffsetY - pPixel.y) / transformScale);
     }
 
     /**
-     * World coordinates -> unit coordinates.
+     * World -> pixel x-coordinate. Requires a valid transform (see validateTransform()).
      */
-    private Vector2f world2Unit(Vector2f pWorld) {
-        Vector2f diagonal = ur.subtract(ll);
-        float scale = Math.max(diagonal.x, diagonal.y);
-        Vector2f pUnit = pWorld.subtract(ll).mult(1.0f / scale);
-        return pUnit;
+    private float world2PixelX(float x) {
+        return x * transformScale + transformOffsetX;
+    }
+
+    /**
+     * World -> pixel y-coordinate. Requires a valid transform (see validateTransform()).
+     */
+    private float world2PixelY(float y) {
+        return transformOffsetY - y * transformScale;
+    }
+
+    /**
+     * Hit-test: returns the item in the index (world coordinates) closest to the given pixel position.
+     *
+     * @param tolerancePx Maximum distance between the pixel position and the item bounds in pixels.
+     * @return null if no item is within the tolerance.
+     */
+    protected <T> T pick(SpatialIndex<T> index, Vector2f pixel, float tolerancePx) {
+        pixel2World(pixel, pickScratch);
+        return index.nearest(pickScratch.x, pickScratch.y, tolerancePx / getScale());
+    }
+
+    /**
+     * Returns all items in the index (world coordinates) intersecting the rectangle spanned by the two pixel
+     * positions, e.g. for a rubber band selection.
+     */
+    protected <T> List<T> pickRange(SpatialIndex<T> index, Vector2f pixelA, Vector2f pixelB) {
+        pixel2World(pixelA, pickScratch);
+        pixel2World(pixelB, pickScratch2);
+        return index.query(Math.min(pickScratch.x, pickScratch2.x), Math.min(pickScratch.y, pickScratch2.y),
+                Math.max(pickScratch.x, pickScratch2.x), Math.max(pickScratch.y, pickScratch2.y));
     }
 
     public float getScale() {
-        Vector2f diagonal = ur.subtract(ll);
-        float scale = (float) Math.min(getWidth(), getHeight()) / (float) Math.max(diagonal.x, diagonal.y);
-        return scale;
+        validateTransform();
+        return transformScale;
     }
 
     /**
-     * Unit coordinates -> world coordinates.
+     * The cached transform must be recomputed on the next access.
      */
-    private Vector2f unit2World(Vector2f pUnit) {
-        Vector2f diagonal = ur.subtract(ll);
-        float scale = Math.max(diagonal.x, diagonal.y);
-        return pUnit.mult(scale).add(ll);
+    private void invalidateTransform() {
+        transformWidth = -1;
+        transformHeight = -1;
     }
 
     /**
-     * Unit coordinates -> pixel coordinates
+     * Recompute the cached world -> pixel transform if the render area or the component size changed.
+     * The render area is fitted into the largest centered square of the component.
      */
-    private Vector2f unit2Pixel(Vector2f pUnit) {
-        float scale = Math.min(getWidth(), getHeight());
-        Vector2f offset = new Vector2f((getWidth() - scale) / 2.0f, (getHeight() - scale) / 2.0f);
-        Vector2f pPixel = pUnit.mult(scale).add(offset);
-        pPixel.y = getHeight() - pPixel.y;
-        return pPixel;
+    private void validateTransform() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width == transformWidth && height == transformHeight) {
+            return;
+        }
+        float extent = Math.max(ur.x - ll.x, ur.y - ll.y);
+        float size = Math.min(width, height);
+        transformScale = size / extent;
+        transformOffsetX = (width - size) / 2.0f - ll.x * transformScale;
+        transformOffsetY = height - (height - size) / 2.0f + ll.y * transformScale;
+        transformWidth = width;
+        transformHeight = height;
+        xTicks = null;
+        yTicks = null;
     }
 
     /**
-     * Pixel coordinates -> unit coordinates.
+     * Validate the transform and set the clipping viewport to the visible part of the component (respecting the
+     * clip of gc) extended by the guard band.
      */
-    private Vector2f pixel2Unit(Vector2f pPixel) {
-        float scale = Math.min(getWidth(), getHeight());
-        Vector2f offset = new Vector2f((getWidth() - scale) / 2.0f, (getHeight() - scale) / 2.0f);
-        Vector2f pUnit = new Vector2f(pPixel.x, getHeight() - pPixel.y);
-        pUnit = pUnit.subtract(offset).mult(1.0f / scale);
-        return pUnit;
+    private void prepareDrawing(Graphics gc) {
+        validateTransform();
+        clipBounds.setBounds(0, 0, getWidth(), getHeight());
+        gc.getClipBounds(clipBounds);
+        int minX = Math.max(clipBounds.x, 0);
+        int minY = Math.max(clipBounds.y, 0);
+        int maxX = Math.min(clipBounds.x + clipBounds.width, getWidth());
+        int maxY = Math.min(clipBounds.y + clipBounds.height, getHeight());
+        clipper.setViewport(minX - GUARD_BAND, minY - GUARD_BAND, maxX + GUARD_BAND, maxY + GUARD_BAND);
     }
 
+    /**
+     * Returns the pixel scratch buffer with a capacity of at least n values.
+     */
+    private float[] pixelScratch(int n) {
+        if (pixelScratch.length < n) {
+            pixelScratch = new float[Math.max(n, 2 * pixelScratch.length)];
+        }
+        return pixelScratch;
+    }
+
+    /**
+     * Make sure the scratch buffers can hold at least n coordinates.
+     */
+    private void ensureScratchCapacity(int n) {
+        if (xScratch.length < n) {
+            int capacity = Math.max(n, 2 * xScratch.length);
+            xScratch = new int[capacity];
+            yScratch = new int[capacity];
+        }
+    }
+
+    /**
+     * Clear the visible area, restricted to the current clip (e.g. the dirty region of a partial repaint).
+     */
     public void clear(Graphics2D gc) {
         gc.setBackground(Color.WHITE);
-        gc.clearRect(0, 0, getWidth(), getHeight());
+        clipBounds.setBounds(0, 0, getWidth(), getHeight());
+        gc.getClipBounds(clipBounds);
+        gc.clearRect(clipBounds.x, clipBounds.y, clipBounds.width, clipBounds.height);
+    }
+
+    /**
+     * Returns the parallel software rasterizer for scenes with very many primitives. It has the size of the
+     * component and uses pixel coordinates (see world2Pixel()). Recorded primitives are drawn by drawRasterizer().
+     */
+    protected TileRasterizer getRasterizer() {
+        int width = Math.max(getWidth(), 1);
+        int height = Math.max(getHeight(), 1);
+        if (rasterizer == null || rasterizer.getWidth() != width || rasterizer.getHeight() != height) {
+            rasterizer = new TileRasterizer(width, height);
+        }
+        return rasterizer;
     }
 
+    /**
+     * Rasterize the recorded primitives of the software rasterizer and blit the result.
+     */
+    protected void drawRasterizer(Graphics gc) {
+        getRasterizer().blit(gc, 0, 0);
+    }
+
+    /**
+     * Draw the image scaled to sizeX x sizeY at the pixel position (x, y). The scaled image is taken from the
+     * shared scaled image cache, call ScaledImageCache.invalidate() after modifying the pixels of the image.
+     */
     public void drawImage(Graphics2D gc, Image image, int x, int y, int sizeX, int sizeY) {
-        gc.drawImage(image, x, y, sizeX, sizeY, null);
+        ScaledImageCache.getInstance().drawImage(gc, image, x, y, sizeX, sizeY);
     }
 
     /**
-     * Draw the coordinate system axis
+     * Draw the coordinate system axis. The axis is rendered as a static layer.
      */
     public void drawAxis(Graphics2D gc) {
-        drawLine(gc, new Vector2f(ll.getX(), 0), new Vector2f(ur.getX(), 0), Color.BLACK);
-        drawLine(gc, new Vector2f(ur.getX() - 0.1f, -0.05f), new Vector2f(ur.getX(), 0), Color.BLACK);
-        drawLine(gc, new Vector2f(ur.getX() - 0.1f, 0.05f), new Vector2f(ur.getX(), 0), Color.BLACK);
-        drawLine(gc, new Vector2f(0, ll.getY()), new Vector2f(0, ur.getX()), Color.BLACK);
-        drawLine(gc, new Vector2f(-0.05f, ur.getY() - 0.1f), new Vector2f(0, ur.getY()), Color.BLACK);
-        drawLine(gc, new Vector2f(0.05f, ur.getY() - 0.1f), new Vector2f(0, ur.getY()), Color.BLACK);
-        for (int i = (int) ll.getX() + 1; i < (int) ur.getX(); i++) {
-            if (i != 0) {
-                drawAxisLabelX(gc, i);
+        drawStaticLayer(gc, AXIS_LAYER, this::renderAxis);
+    }
+
+    /**
+     * Render the coordinate system axis into the static axis layer. Tick, arrow and label sizes are given in
+     * pixels, the number of ticks is bounded by the pixel size of the axis (see AxisTicks).
+     */
+    private void renderAxis(Graphics2D gc) {
+        drawLine(gc, ll.getX(), 0, ur.getX(), 0, Color.BLACK);
+        drawLine(gc, 0, ll.getY(), 0, ur.getY(), Color.BLACK);
+        validateTransform();
+        if (xTicks == null) {
+            xTicks = AxisTicks.compute(ll.getX(), ur.getX(), (ur.getX() - ll.getX()) * transformScale,
+                    MIN_TICK_SPACING);
+            yTicks = AxisTicks.compute(ll.getY(), ur.getY(), (ur.getY() - ll.getY()) * transformScale,
+                    MIN_TICK_SPACING);
+        }
+        int originX = (int) world2PixelX(0);
+        int originY = (int) world2PixelY(0);
+        gc.setColor(Color.BLACK);
+        if (ll.getY() <= 0 && 0 <= ur.getY()) {
+            int arrowX = (int) world2PixelX(ur.getX());
+            gc.drawLine(arrowX - ARROW_LENGTH, originY - ARROW_WIDTH, arrowX, originY);
+            gc.drawLine(arrowX - ARROW_LENGTH, originY + ARROW_WIDTH, arrowX, originY);
+            for (int i = 0; i < xTicks.getCount(); i++) {
+                if (!xTicks.isOrigin(i)) {
+                    drawAxisLabelX(gc, (int) world2PixelX((float) xTicks.getValue(i)), originY, xTicks.getLabel(i));
+                }
             }
         }
-        for (int i = (int) ll.getY() + 1; i < (int) ur.getY(); i++) {
-            if (i != 0) {
-                drawAxisLabelY(gc, i);
+        if (ll.getX() <= 0 && 0 <= ur.getX()) {
+            int arrowY = (int) world2PixelY(ur.getY());
+            gc.drawLine(originX - ARROW_WIDTH, arrowY + ARROW_LENGTH, originX, arrowY);
+            gc.drawLine(originX + ARROW_WIDTH, arrowY + ARROW_LENGTH, originX, arrowY);
+            for (int i = 0; i < yTicks.getCount(); i++) {
+                if (!yTicks.isOrigin(i)) {
+                    drawAxisLabelY(gc, originX, (int) world2PixelY((float) yTicks.getValue(i)), yTicks.getLabel(i));
+                }
             }
         }
     }
 
     /**
-     * Draws the axis label along the x-direction.
+     * Draws the axis label along the x-direction at the pixel position (x, originY).
      */
-    private void drawAxisLabelX(Graphics2D gc, int i) {
-        drawLine(gc, new Vector2f(i, -0.05f), new Vector2f(i, 0.05f), Color.BLACK);
-        drawText(gc, "" + i, new Vector2f(i - 0.05f, -0.3f), Color.BLACK);
+    private void drawAxisLabelX(Graphics2D gc, int x, int originY, String label) {
+        gc.drawLine(x, originY - TICK_SIZE, x, originY + TICK_SIZE);
+        TextCache.getInstance().drawString(gc, label, x - TICK_SIZE, originY + 6 * TICK_SIZE);
     }
 
     /**
-     * Draws the axis label along the y-direction.
+     * Draws the axis label along the y-direction at the pixel position (originX, y).
      */
-    private void drawAxisLabelY(Graphics2D gc, int i) {
-        drawLine(gc, new Vector2f(-0.05f, i), new Vector2f(0.05f, i), Color.BLACK);
-        drawText(gc, "" + i, new Vector2f(0.1f, i - 0.05f), Color.BLACK);
+    private void drawAxisLabelY(Graphics2D gc, int originX, int y, String label) {
+        gc.drawLine(originX - TICK_SIZE, y, originX + TICK_SIZE, y);
+        TextCache.getInstance().drawString(gc, label, originX + 2 * TICK_SIZE, y + TICK_SIZE);
     }
 
+    /**
+     * Returns a copy of the lower left corner of the render area, use setRenderArea() to change it.
+     */
     public Vector2f getLL() {
-        return ll;
+        return ll.clone();
     }
 
+    /**
+     * Returns a copy of the upper right corner of the render area, use setRenderArea() to change it.
+     */
     public Vector2f getUR() {
-        return ur;
+        return ur.clone();
     }
 
     public void handleKey(String keyId) {
@@ -20,7 +20,12 @@ import com.jme3.scene.Node;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * This scene class is used to represent the scene content.
@@ -34,9 +39,19 @@ public abstract class Scene3D {
   }
 
   /**
-   * This list of tasks is scheduled to be invoked by the JME thread.
+   * These tasks are scheduled to be invoked by the JME thread.
    */
-  private List<Runnable> runLaterTasks;
+  private final RunLaterQueue runLaterTasks;
+
+  /**
+   * Background computations of the scene.
+   */
+  private final SceneJobs backgroundJobs;
+
+  /**
+   * Cached assets of the scene, provided by the application before init().
+   */
+  private AssetPreloader assets;
 
   /**
    * This flag indicates that the scene wants to set the new camera controller in newCameraController
@@ -49,7 +64,8 @@ public abstract class Scene3D {
   private AbstractCameraController newCameraController;
 
   public Scene3D() {
-    runLaterTasks = new ArrayList<>();
+    runLaterTasks = new RunLaterQueue();
+    backgroundJobs = new SceneJobs(runLaterTasks);
     hasNewCameraController = false;
     newCameraController = null;
   }
@@ -64,11 +80,42 @@ public abstract class Scene3D {
     return null;
   }
 
+  /**
+   * Declare the models and textures used in init() using assets.preloadModel() and assets.preloadTexture(). They
+   * are loaded in the background and init() is called when they are available, get them in init() using
+   * getAssets().getModel() and getAssets().getTexture(). Called on the jMonkey thread before init().
+   */
+  public void declareAssets(AssetPreloader assets) {
+    // Default: none
+  }
+
+  /**
+   * Cache of the scene assets, see declareAssets(). Null if the scene is not run by an application.
+   */
+  protected AssetPreloader getAssets() {
+    return assets;
+  }
+
+  void setAssets(AssetPreloader assets) {
+    this.assets = assets;
+  }
+
   /**
    * The init method is called once at the beginning of the runtime.
    */
   public abstract void init(AssetManager assetManager, Node rootNode, AbstractCameraController cameraController);
 
+  /**
+   * Initialization split into steps, e.g. one step per model attached to the root node. The application runs a
+   * few steps per frame while the previous scene is still shown, so large scenes do not stall the rendering.
+   * Steps are run on the jMonkey thread, the last step completes the initialization. Default: a single step
+   * calling init().
+   */
+  public Iterator<Runnable> initSteps(AssetManager assetManager, Node rootNode,
+                                      AbstractCameraController cameraController) {
+    return List.<Runnable>of(() -> init(assetManager, rootNode, cameraController)).iterator();
+  }
+
   /**
    * The update method is used to update the simulation state.
    */
@@ -85,15 +132,56 @@ public abstract class Scene3D {
   public abstract String getTitle();
 
   /**
-   * Enqueue a task to the list which will be processed when the jMonkey Thread is active.
+   * Enqueue a task which will be processed when the jMonkey Thread is active. Can be called from any thread
+   * without blocking.
+   *
+   * @return Completed after the task has run, completed exceptionally if the task failed. Cancelling the future
+   * before the task has started skips the task.
    */
-  protected synchronized void runLater(Runnable task) {
-    runLaterTasks.add(task);
+  protected CompletableFuture<Void> runLater(Runnable task) {
+    return runLaterTasks.add(task);
   }
 
-  public synchronized void invokeRunlaterTasks() {
-    runLaterTasks.forEach(task -> task.run());
-    runLaterTasks.clear();
+  /**
+   * Invoke the enqueued tasks (jMonkey thread, once per frame). Tasks are invoked in order until the per-frame
+   * time budget is used up, the remaining tasks are invoked in the next frame.
+   */
+  public void invokeRunlaterTasks() {
+    runLaterTasks.drain();
+  }
+
+  /**
+   * Set the time the runLater tasks may take per frame (default: 4ms).
+   */
+  public void setRunLaterBudget(long time, TimeUnit unit) {
+    runLaterTasks.setBudget(time, unit);
+  }
+
+  /**
+   * Run a heavy computation (e.g. procedural generation) on a worker thread and pass its result to onResult on
+   * the jMonkey thread. Jobs are latest-wins per key: a pending job with the same key is cancelled, its result is
+   * discarded. Long computations should check Thread.currentThread().isInterrupted() and stop early.
+   *
+   * @return Completed with the result after onResult has run, cancelled if the job was superseded or cancelled.
+   */
+  protected <T> CompletableFuture<T> runInBackground(Object key, Supplier<T> computation,
+                                                     Consumer<? super T> onResult) {
+    return backgroundJobs.submit(key, computation, onResult);
+  }
+
+  /**
+   * Run a computation on a worker thread and pass its result to onResult on the jMonkey thread (no latest-wins
+   * semantics, see runInBackground(Object, Supplier, Consumer)).
+   */
+  protected <T> CompletableFuture<T> runInBackground(Supplier<T> computation, Consumer<? super T> onResult) {
+    return backgroundJobs.submit(new Object(), computation, onResult);
+  }
+
+  /**
+   * Cancel all pending background jobs of the scene. Called automatically when the scene is replaced.
+   */
+  public void cancelBackgroundJobs() {
+    backgroundJobs.cancelAll();
   }
 
   /**
@@ -104,7 +192,17 @@ public abstract class Scene3D {
   }
 
   /**
-   * The mouse was moved over the window and no button is clicked.
+   * Ray picking against the triangles of the scene graph, e.g. getPicking().pick(rootNode, ray) in
+   * handlePicking() or handleMouseMove(). Shared by all scenes.
+   */
+  protected PickingService getPicking() {
+    return PickingService.getInstance();
+  }
+
+  /**
+   * The mouse was moved over the window and no button is clicked. Called at most once per frame for the final
+   * cursor position. The application reuses click2d and ray for every call, copy them if they are needed after
+   * this method returns.
    */
   public void handleMouseMove(Vector2f click2d, Ray3D ray) {
     // Default: ignore
@@ -117,7 +215,7 @@ public abstract class Scene3D {
    */
   protected Node loadCharacter(AssetManager assetManager, Node rootNode,
                                String gltfFilename) {
-    Node node = (Node) assetManager.loadModel(gltfFilename);
+    Node node = (Node) (assets != null ? assets.getModel(gltfFilename) : assetManager.loadModel(gltfFilename));
     node = (Node) node.getChild("knight");
     node.setShadowMode(RenderQueue.ShadowMode.Cast);
     rootNode.attachChild(node);
@@ -129,7 +227,8 @@ public abstract class Scene3D {
   }
 
   /**
-   * This is the default lighting - can be altered in inheriting scene classes.
+   * This is the default lighting - can be altered in inheriting scene classes. The rootNode is the root node of
+   * the scene passed to init(), so the lights only affect the scene content attached below it.
    */
   public void setupLights(Node rootNode, ViewPort viewPort) {
     // Clear lights
@@ -153,7 +252,9 @@ public abstract class Scene3D {
   }
 
   /**
-   * Provide the JME application object to the scene (if it needs it).
+   * Provide the JME application object to the scene (if it needs it). Called before init(). Spatials attached
+   * directly to the root node of the application are not lit by the lights of setupLights(), attach the scene
+   * content to the rootNode passed to init(). They are detached when the next scene replaces this scene.
    */
   public void provideJMEApp(ComputergraphicsJMEApp app) {
     // usually not required
@@ -0,0 +1,166 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import ui.mesh.LodGenerator;
+import ui.mesh.StaticBatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initializes a scene across several frames while the current scene is still rendered. The scene is built into
+ * its own scene root, which is not attached to the application root node yet:
+ * <ol>
+ *   <li>wait for the assets of the scene (see AssetPreloader),</li>
+ *   <li>run the initialization steps of the scene (see Scene3D.initSteps()) and set up the lights,</li>
+ *   <li>generate levels of detail (optional, see LodGenerator): the levels are computed on the worker threads
+ *   of SceneJobs and applied once all are computed,</li>
+ *   <li>merge the static geometries (optional, see StaticBatcher),</li>
+ *   <li>upload the meshes, textures and shaders to the GPU (RenderManager.preloadScene()).</li>
+ * </ol>
+ * Each frame, advance() works on these phases until the time budget is used up. Afterwards the application only
+ * has to replace the scene root of the current scene by the new one.
+ */
+class SceneInitializer {
+
+  /**
+   * Default time budget per frame.
+   */
+  static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+  /**
+   * Budget without time limit: advance() waits for the assets and completes the initialization in one call, so the
+   * number of frames does not depend on the wall clock.
+   */
+  static final long UNLIMITED_BUDGET = Long.MAX_VALUE;
+
+  private final Scene3D scene;
+
+  private final Node sceneRoot;
+
+  /**
+   * Assets of the scene, init steps start when they are loaded.
+   */
+  private final CompletableFuture<Void> assets;
+
+  private final boolean automaticLod, staticBatching;
+
+  /**
+   * Remaining steps of the phases, null if the phase has not started yet.
+   */
+  private Iterator<Runnable> initSteps = null;
+  private Iterator<Geometry> lodCandidates = null;
+  private Iterator<Geometry> lodApplications = null;
+
+  /**
+   * Levels of detail per candidate geometry, computed in the background.
+   */
+  private final Map<Geometry, CompletableFuture<VertexBuffer[]>> lodLevels = new LinkedHashMap<>();
+  private CompletableFuture<Void> lodComputations = null;
+  private Iterator<Spatial> preloads = null;
+
+  SceneInitializer(Scene3D scene, CompletableFuture<Void> assets, boolean automaticLod, boolean staticBatching) {
+    this.scene = scene;
+    this.assets = assets;
+    this.automaticLod = automaticLod;
+    this.staticBatching = staticBatching;
+    this.sceneRoot = new Node("Scene root: " + scene.getTitle());
+  }
+
+  public Scene3D getScene() {
+    return scene;
+  }
+
+  /**
+   * Root node of the scene content and lights, attach it to the application root node when the scene is ready.
+   */
+  public Node getSceneRoot() {
+    return sceneRoot;
+  }
+
+  /**
+   * Continue the initialization for about the time budget (jMonkey thread). At least one step is run per call
+   * once the assets are loaded, so single expensive steps may exceed the budget.
+   *
+   * @param budgetNanos Time budget, UNLIMITED_BUDGET to complete the initialization.
+   * @return The scene is ready.
+   */
+  public boolean advance(AssetManager assetManager, AbstractCameraController cameraController,
+                         RenderManager renderManager, ViewPort viewPort, long budgetNanos) {
+    boolean unlimited = budgetNanos == UNLIMITED_BUDGET;
+    if (unlimited) {
+      assets.join();
+    } else if (!assets.isDone()) {
+      return false;
+    }
+    long deadline = unlimited ? 0 : System.nanoTime() + budgetNanos;
+    if (initSteps == null) {
+      initSteps = scene.initSteps(assetManager, sceneRoot, cameraController);
+    }
+    while (initSteps.hasNext()) {
+      initSteps.next().run();
+      if (!unlimited && System.nanoTime() - deadline > 0) {
+        return false;
+      }
+    }
+    if (lodCandidates == null) {
+      scene.setupLights(sceneRoot, viewPort);
+      lodCandidates = automaticLod ? LodGenerator.findCandidates(sceneRoot).iterator()
+              : Collections.emptyIterator();
+    }
+    while (lodCandidates.hasNext()) {
+      Geometry geometry = lodCandidates.next();
+      lodLevels.put(geometry, LodGenerator.computeLevels(geometry.getMesh(), SceneJobs.getWorkers()));
+      if (!unlimited && System.nanoTime() - deadline > 0) {
+        return false;
+      }
+    }
+    if (lodApplications == null) {
+      if (lodComputations == null) {
+        lodComputations = CompletableFuture.allOf(lodLevels.values().toArray(new CompletableFuture[0]));
+      }
+      if (unlimited) {
+        lodComputations.join();
+      } else if (!lodComputations.isDone()) {
+        return false;
+      }
+      lodApplications = lodLevels.keySet().iterator();
+    }
+    while (lodApplications.hasNext()) {
+      Geometry geometry = lodApplications.next();
+      LodGenerator.applyLevels(geometry, lodLevels.get(geometry).join());
+      if (!unlimited && System.nanoTime() - deadline > 0) {
+        return false;
+      }
+    }
+    if (preloads == null) {
+      if (staticBatching) {
+        StaticBatcher.batch(sceneRoot);
+      }
+      preloads = new ArrayList<>(sceneRoot.getChildren()).iterator();
+    }
+    while (preloads.hasNext()) {
+      renderManager.preloadScene(preloads.next());
+      if (!unlimited && System.nanoTime() - deadline > 0) {
+        return !preloads.hasNext();
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import misc.Logger;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Background jobs of a scene. The computations run on a pool of worker threads shared by all scenes, the results
+ * are handed to the render thread via the runLater queue of the scene. Jobs with the same key are latest-wins:
+ * submitting a job cancels the previous job with that key, and results of cancelled jobs are never delivered.
+ */
+class SceneJobs {
+
+  /**
+   * Worker threads shared by all scenes. One core is left to the render thread.
+   */
+  private static final ExecutorService workers = Executors.newFixedThreadPool(
+          Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new WorkerThreadFactory());
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "scene-job-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  /**
+   * A submitted job is the future returned to the scene.
+   */
+  private class Job<T> extends CompletableFuture<T> implements Runnable {
+    private final Object key;
+    private final Supplier<T> computation;
+    private final Consumer<? super T> onResult;
+
+    /**
+     * Execution on the worker pool, used to interrupt a running computation.
+     */
+    private volatile Future<?> execution;
+
+    private Job(Object key, Supplier<T> computation, Consumer<? super T> onResult) {
+      this.key = key;
+      this.computation = computation;
+      this.onResult = onResult;
+    }
+
+    /**
+     * Compute the result (worker thread).
+     */
+    @Override
+    public void run() {
+      if (isDone()) {
+        return;
+      }
+      try {
+        T result = computation.get();
+        if (!isDone()) {
+          renderThreadTasks.add(() -> deliver(result));
+        }
+      } catch (Exception e) {
+        if (!isDone()) {
+          jobs.remove(key, this);
+          completeExceptionally(e);
+          Logger.getInstance().exception("Background job failed", e);
+        }
+      }
+    }
+
+    /**
+     * Hand the result to the scene (render thread).
+     */
+    private void deliver(T result) {
+      if (isDone()) {
+        return;
+      }
+      jobs.remove(key, this);
+      try {
+        onResult.accept(result);
+        complete(result);
+      } catch (Exception e) {
+        completeExceptionally(e);
+        Logger.getInstance().exception("Background job result handling failed", e);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      Future<?> execution = this.execution;
+      if (execution != null) {
+        execution.cancel(mayInterruptIfRunning);
+      }
+      jobs.remove(key, this);
+      return cancelled;
+    }
+  }
+
+  /**
+   * Pending jobs by key.
+   */
+  private final Map<Object, Job<?>> jobs = new ConcurrentHashMap<>();
+
+  /**
+   * Results are delivered using this queue.
+   */
+  private final RunLaterQueue renderThreadTasks;
+
+  public SceneJobs(RunLaterQueue renderThreadTasks) {
+    this.renderThreadTasks = renderThreadTasks;
+  }
+
+  /**
+   * Run the computation on a worker thread and pass its result to onResult on the render thread. A pending job
+   * with the same key is cancelled.
+   *
+   * @return Completed with the result after onResult has run, cancelled if the job is superseded or cancelled.
+   */
+  public <T> CompletableFuture<T> submit(Object key, Supplier<T> computation, Consumer<? super T> onResult) {
+    Validate.notNull(key, "key must not be null");
+    Validate.notNull(computation, "computation must not be null");
+    Validate.notNull(onResult, "onResult must not be null");
+    Job<T> job = new Job<>(key, computation, onResult);
+    Job<?> previous = jobs.put(key, job);
+    if (previous != null) {
+      previous.cancel(true);
+    }
+    job.execution = workers.submit(job);
+    return job;
+  }
+
+  /**
+   * Cancel all pending jobs, running computations are interrupted.
+   */
+  public void cancelAll() {
+    for (Job<?> job : jobs.values()) {
+      job.cancel(true);
+    }
+  }
+
+  public int getPendingCount() {
+    return jobs.size();
+  }
+
+  /**
+   * The shared worker threads, for computations which are not bound to a running scene (e.g. the scene
+   * initialization).
+   */
+  static Executor getWorkers() {
+    return workers;
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.math.Vector2f;
+import org.apache.commons.lang3.Validate;
+
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Path2D;
+import java.util.List;
+
+/**
+ * Piecewise cubic Bezier curve for 2D scenes, given by 3n + 1 control points in world coordinates (consecutive
+ * segments share their end points). For drawing, the curve is adaptively flattened in pixel space to a given
+ * tolerance. The flattened path is cached and only rebuilt if the control points or the world -> pixel transform
+ * change.
+ */
+public class SplinePath {
+
+  /**
+   * Maximum recursion depth of the subdivision.
+   */
+  private static final int MAX_SUBDIVISION_DEPTH = 16;
+
+  /**
+   * Control points as (x, y) pairs.
+   */
+  private float[] controlPoints;
+
+  /**
+   * Incremented whenever a control point changes.
+   */
+  private int version;
+
+  /**
+   * Flattened path in pixel coordinates and the state it was computed for.
+   */
+  private final Path2D.Float path = new Path2D.Float();
+  private int pathVersion = -1;
+  private float pathScale, pathOffsetX, pathOffsetY, pathTolerance;
+  private int pathWidth, pathHeight;
+
+  /**
+   * Scratch buffer for the subdivision: one cubic segment (8 values) per recursion level.
+   */
+  private final float[] subdivision = new float[8 * (MAX_SUBDIVISION_DEPTH + 1)];
+
+  /**
+   * @param controlPoints (x, y) pairs of 3n + 1 control points (n >= 1), the array is copied.
+   */
+  public SplinePath(float[] controlPoints) {
+    setControlPoints(controlPoints);
+  }
+
+  public SplinePath(List<Vector2f> controlPoints) {
+    float[] xy = new float[2 * controlPoints.size()];
+    for (int i = 0; i < controlPoints.size(); i++) {
+      xy[2 * i] = controlPoints.get(i).x;
+      xy[2 * i + 1] = controlPoints.get(i).y;
+    }
+    setControlPoints(xy);
+  }
+
+  /**
+   * Replace all control points, (x, y) pairs of 3n + 1 control points (n >= 1), the array is copied.
+   */
+  public void setControlPoints(float[] controlPoints) {
+    Validate.isTrue(controlPoints.length >= 8 && (controlPoints.length / 2) % 3 == 1
+            && controlPoints.length % 2 == 0, "3n + 1 control points required");
+    this.controlPoints = controlPoints.clone();
+    version++;
+  }
+
+  public void setControlPoint(int index, float x, float y) {
+    controlPoints[2 * index] = x;
+    controlPoints[2 * index + 1] = y;
+    version++;
+  }
+
+  public void setControlPoint(int index, Vector2f p) {
+    setControlPoint(index, p.x, p.y);
+  }
+
+  public int getNumberOfControlPoints() {
+    return controlPoints.length / 2;
+  }
+
+  public Vector2f getControlPoint(int index) {
+    return new Vector2f(controlPoints[2 * index], controlPoints[2 * index + 1]);
+  }
+
+  /**
+   * Number of cubic segments.
+   */
+  public int getNumberOfSegments() {
+    return (getNumberOfControlPoints() - 1) / 3;
+  }
+
+  /**
+   * Returns the flattened path in pixel coordinates for the transform pixel = (x * scale + offsetX, offsetY - y *
+   * scale). Segments outside the target area (width x height pixels plus a margin) are skipped.
+   *
+   * @param tolerance Maximum distance (pixels) between the curve and the flattened path.
+   */
+  Path2D getFlattenedPath(float scale, float offsetX, float offsetY, int width, int height, float tolerance) {
+    if (pathVersion != version || pathScale != scale || pathOffsetX != offsetX || pathOffsetY != offsetY
+            || pathWidth != width || pathHeight != height || pathTolerance != tolerance) {
+      flatten(scale, offsetX, offsetY, width, height, tolerance);
+      pathVersion = version;
+      pathScale = scale;
+      pathOffsetX = offsetX;
+      pathOffsetY = offsetY;
+      pathWidth = width;
+      pathHeight = height;
+      pathTolerance = tolerance;
+    }
+    return path;
+  }
+
+  private void flatten(float scale, float offsetX, float offsetY, int width, int height, float tolerance) {
+    path.reset();
+    float margin = tolerance + 2;
+    boolean connected = false;
+    for (int segment = 0; segment < getNumberOfSegments(); segment++) {
+      float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+      float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+      for (int i = 0; i < 4; i++) {
+        float x = controlPoints[2 * (3 * segment + i)] * scale + offsetX;
+        float y = offsetY - controlPoints[2 * (3 * segment + i) + 1] * scale;
+        subdivision[2 * i] = x;
+        subdivision[2 * i + 1] = y;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+      // The curve lies within the convex hull of its control points
+      if (maxX < -margin || maxY < -margin || minX > width + margin || minY > height + margin) {
+        connected = false;
+        continue;
+      }
+      if (!connected) {
+        path.moveTo(subdivision[0], subdivision[1]);
+        connected = true;
+      }
+      subdivide(0, 0, tolerance * tolerance);
+    }
+  }
+
+  /**
+   * Recursively split the cubic segment stored at the given level of the subdivision buffer until it is flat
+   * enough, then append its end point to the path. The left half of a split is processed at the next level, the
+   * right half replaces the segment at the current level.
+   */
+  private void subdivide(int level, int depth, float toleranceSquared) {
+    int o = 8 * level;
+    int n = o + 8;
+    float[] c = subdivision;
+    while (depth < MAX_SUBDIVISION_DEPTH && CubicCurve2D.getFlatnessSq(c[o], c[o + 1], c[o + 2], c[o + 3],
+            c[o + 4], c[o + 5], c[o + 6], c[o + 7]) > toleranceSquared) {
+      // de Casteljau split at t = 0.5
+      for (int k = 0; k < 2; k++) {
+        float p0 = c[o + k], p1 = c[o + 2 + k], p2 = c[o + 4 + k], p3 = c[o + 6 + k];
+        float p01 = (p0 + p1) / 2, p12 = (p1 + p2) / 2, p23 = (p2 + p3) / 2;
+        float p012 = (p01 + p12) / 2, p123 = (p12 + p23) / 2;
+        float mid = (p012 + p123) / 2;
+        c[n + k] = p0;
+        c[n + 2 + k] = p01;
+        c[n + 4 + k] = p012;
+        c[n + 6 + k] = mid;
+        c[o + k] = mid;
+        c[o + 2 + k] = p123;
+        c[o + 4 + k] = p23;
+      }
+      depth++;
+      subdivide(level + 1, depth, toleranceSquared);
+    }
+    path.lineTo(c[o + 6], c[o + 7]);
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least-recently-used cache of shaped text. Shaping a string (glyph lookup, layout) is expensive compared to
+ * drawing the resulting glyphs, so labels which are drawn again in every frame are shaped only once. Shared by all
+ * scenes, thread-safe.
+ */
+public class TextCache {
+
+  /**
+   * Default number of cached text layouts.
+   */
+  private static final int DEFAULT_CAPACITY = 2048;
+
+  private static final TextCache instance = new TextCache(DEFAULT_CAPACITY);
+
+  /**
+   * Cache key: the layout depends on the text, the font and the render context (antialiasing, transform).
+   */
+  private static class Key {
+    private final String text;
+    private final Font font;
+    private final FontRenderContext fontRenderContext;
+
+    private Key(String text, Font font, FontRenderContext fontRenderContext) {
+      this.text = text;
+      this.font = font;
+      this.fontRenderContext = fontRenderContext;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return text.equals(key.text) && font.equals(key.font) && fontRenderContext.equals(key.fontRenderContext);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(text, font, fontRenderContext);
+    }
+  }
+
+  private final Map<Key, TextLayout> layouts;
+
+  public TextCache(int capacity) {
+    layouts = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, TextLayout> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public static TextCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the (cached) layout of the text.
+   *
+   * @param text Must not be empty.
+   */
+  public TextLayout getLayout(String text, Font font, FontRenderContext fontRenderContext) {
+    Key key = new Key(text, font, fontRenderContext);
+    synchronized (layouts) {
+      TextLayout layout = layouts.get(key);
+      if (layout != null) {
+        return layout;
+      }
+    }
+    // Shape outside of the lock, so threads drawing different text do not wait for each other
+    TextLayout layout = new TextLayout(text, font, fontRenderContext);
+    synchronized (layouts) {
+      // Keep the layout of another thread which shaped the same text in the meantime
+      TextLayout cached = layouts.putIfAbsent(key, layout);
+      return cached != null ? cached : layout;
+    }
+  }
+
+  /**
+   * Draw the text with its baseline starting at (x, y) using the current font and color of the graphics context.
+   */
+  public void drawString(Graphics2D gc, String text, float x, float y) {
+    if (text.isEmpty()) {
+      return;
+    }
+    getLayout(text, gc.getFont(), gc.getFontRenderContext()).draw(gc, x, y);
+  }
+
+  public void clear() {
+    synchronized (layouts) {
+      layouts.clear();
+    }
+  }
+}
@@ -0,0 +1,333 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * Clips primitives in pixel coordinates against a rectangular viewport before they are rasterized. Polylines are
+ * additionally decimated to pixel resolution: consecutive vertices within one pixel column are reduced to the
+ * entry, minimum, maximum and exit vertex of that column. All buffers are reused between calls.
+ */
+class ViewportClipper {
+
+    /**
+     * Receives the visible runs of a clipped polyline.
+     */
+    interface PolylineSink {
+        void drawPolyline(int[] x, int[] y, int n);
+    }
+
+    /**
+     * Viewport in pixel coordinates.
+     */
+    private float minX, minY, maxX, maxY;
+
+    /**
+     * Result of the last polygon clipping as (x, y) pairs and the scratch buffer for the intermediate result.
+     */
+    private float[] polygon = new float[32], polygonScratch = new float[32];
+
+    /**
+     * Number of vertices in polygon.
+     */
+    private int polygonSize;
+
+    /**
+     * Scratch segment (x0, y0, x1, y1).
+     */
+    private final float[] segment = new float[4];
+
+    /**
+     * Entering and leaving parameter of the current segment clipping. Computed in double precision, since the
+     * coordinates of far off-screen vertices may be huge.
+     */
+    private double tEnter, tLeave;
+
+    /**
+     * Vertices of the current polyline run.
+     */
+    private int[] runX = new int[64], runY = new int[64];
+
+    /**
+     * Number of vertices in the current polyline run.
+     */
+    private int runSize;
+
+    /**
+     * Consumer of the current polyline.
+     */
+    private PolylineSink sink;
+
+    /**
+     * Previous polyline input vertex (pixel coordinates).
+     */
+    private float previousX, previousY;
+    private boolean hasPrevious;
+
+    /**
+     * Last vertex added to the current run before decimation.
+     */
+    private int lastX, lastY;
+
+    /**
+     * State of the current pixel column: x-coordinate, extreme and last y-coordinates and the order in which the
+     * extremes were reached.
+     */
+    private int columnX, columnMinY, columnMaxY, columnLastY;
+    private boolean columnMinFirst, columnOpen, columnPending;
+
+    public void setViewport(float minX, float minY, float maxX, float maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Returns true if the point is inside the viewport.
+     */
+    public boolean contains(float x, float y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * Returns true if the axis-aligned box intersects the viewport.
+     */
+    public boolean intersects(float boxMinX, float boxMinY, float boxMaxX, float boxMaxY) {
+        return boxMaxX >= minX && boxMinX <= maxX && boxMaxY >= minY && boxMinY <= maxY;
+    }
+
+    /**
+     * Clip the segment (x0, y0, x1, y1) in place (Liang-Barsky).
+     *
+     * @return false if the segment is completely outside the viewport.
+     */
+    public boolean clipSegment(float[] segment) {
+        double x0 = segment[0], y0 = segment[1];
+        double dx = segment[2] - x0, dy = segment[3] - y0;
+        tEnter = 0;
+        tLeave = 1;
+        if (!clipT(-dx, x0 - minX) || !clipT(dx, maxX - x0) || !clipT(-dy, y0 - minY) || !clipT(dy, maxY - y0)) {
+            return false;
+        }
+        if (tLeave < 1) {
+            segment[2] = (float) (x0 + tLeave * dx);
+            segment[3] = (float) (y0 + tLeave * dy);
+        }
+        if (tEnter > 0) {
+            segment[0] = (float) (x0 + tEnter * dx);
+            segment[1] = (float) (y0 + tEnter * dy);
+        }
+        return true;
+    }
+
+    /**
+     * Liang-Barsky parameter update for one boundary.
+     */
+    private boolean clipT(double p, double q) {
+        if (p == 0) {
+            return q >= 0;
+        }
+        double r = q / p;
+        if (p < 0) {
+            if (r > tLeave) {
+                return false;
+            }
+            tEnter = Math.max(tEnter, r);
+        } else {
+            if (r < tEnter) {
+                return false;
+            }
+            tLeave = Math.min(tLeave, r);
+        }
+        return true;
+    }
+
+    /**
+     * Clip a closed polygon given as n (x, y) pairs against the viewport (Sutherland-Hodgman). The result is
+     * available via getPolygon().
+     *
+     * @return Number of vertices of the clipped polygon.
+     */
+    public int clipPolygon(float[] xy, int n) {
+        ensurePolygonCapacity(n);
+        System.arraycopy(xy, 0, polygon, 0, 2 * n);
+        polygonSize = n;
+        clipPolygonAgainst(0, minX, -1);
+        clipPolygonAgainst(0, maxX, 1);
+        clipPolygonAgainst(1, minY, -1);
+        clipPolygonAgainst(1, maxY, 1);
+        return polygonSize;
+    }
+
+    /**
+     * Vertices of the last clipped polygon as (x, y) pairs.
+     */
+    public float[] getPolygon() {
+        return polygon;
+    }
+
+    /**
+     * Clip the current polygon against one boundary: coordinate[axis] * side <= bound * side is inside.
+     */
+    private void clipPolygonAgainst(int axis, float bound, int side) {
+        if (polygonSize == 0) {
+            return;
+        }
+        if (polygonScratch.length < 4 * polygonSize) {
+            polygonScratch = new float[4 * polygonSize];
+        }
+        int n = 0;
+        for (int i = 0; i < polygonSize; i++) {
+            int j = (i + 1) % polygonSize;
+            float ci = polygon[2 * i + axis], cj = polygon[2 * j + axis];
+            boolean insideI = ci * side <= bound * side;
+            boolean insideJ = cj * side <= bound * side;
+            if (insideI) {
+                polygonScratch[2 * n] = polygon[2 * i];
+                polygonScratch[2 * n + 1] = polygon[2 * i + 1];
+                n++;
+            }
+            if (insideI != insideJ) {
+                double t = ((double) bound - ci) / ((double) cj - ci);
+                polygonScratch[2 * n] = (float) (polygon[2 * i] + t * ((double) polygon[2 * j] - polygon[2 * i]));
+                polygonScratch[2 * n + 1] =
+                        (float) (polygon[2 * i + 1] + t * ((double) polygon[2 * j + 1] - polygon[2 * i + 1]));
+                polygonScratch[2 * n + axis] = bound;
+                n++;
+            }
+        }
+        float[] swap = polygon;
+        polygon = polygonScratch;
+        polygonScratch = swap;
+        polygonSize = n;
+    }
+
+    private void ensurePolygonCapacity(int n) {
+        if (polygon.length < 2 * n) {
+            polygon = new float[4 * n];
+        }
+    }
+
+    /**
+     * Start a new clipped and decimated polyline. The visible runs are passed to the sink.
+     */
+    public void beginPolyline(PolylineSink sink) {
+        this.sink = sink;
+        hasPrevious = false;
+        runSize = 0;
+        columnOpen = false;
+    }
+
+    /**
+     * Add the next polyline vertex (pixel coordinates).
+     */
+    public void polylineTo(float x, float y) {
+        if (!hasPrevious) {
+            previousX = x;
+            previousY = y;
+            hasPrevious = true;
+            return;
+        }
+        segment[0] = previousX;
+        segment[1] = previousY;
+        segment[2] = x;
+        segment[3] = y;
+        previousX = x;
+        previousY = y;
+        if (!clipSegment(segment)) {
+            endRun();
+            return;
+        }
+        int x0 = (int) segment[0], y0 = (int) segment[1];
+        if (runSize == 0 || x0 != lastX || y0 != lastY) {
+            endRun();
+            addVertex(x0, y0);
+        }
+        addVertex((int) segment[2], (int) segment[3]);
+    }
+
+    /**
+     * Finish the current polyline.
+     */
+    public void endPolyline() {
+        endRun();
+        hasPrevious = false;
+        sink = null;
+    }
+
+    /**
+     * Add a vertex to the current run, vertices in the current pixel column are collapsed.
+     */
+    private void addVertex(int x, int y) {
+        lastX = x;
+        lastY = y;
+        if (columnOpen && x == columnX) {
+            if (y < columnMinY) {
+                columnMinY = y;
+                columnMinFirst = false;
+            } else if (y > columnMaxY) {
+                columnMaxY = y;
+                columnMinFirst = true;
+            }
+            columnLastY = y;
+            columnPending = true;
+            return;
+        }
+        flushColumn();
+        emit(x, y);
+        columnX = x;
+        columnMinY = columnMaxY = columnLastY = y;
+        columnOpen = true;
+        columnPending = false;
+    }
+
+    /**
+     * Emit the collapsed vertices of the current pixel column.
+     */
+    private void flushColumn() {
+        if (columnOpen && columnPending) {
+            emit(columnX, columnMinFirst ? columnMinY : columnMaxY);
+            emit(columnX, columnMinFirst ? columnMaxY : columnMinY);
+            emit(columnX, columnLastY);
+        }
+        columnOpen = false;
+        columnPending = false;
+    }
+
+    /**
+     * Append a vertex to the run, consecutive duplicates are skipped.
+     */
+    private void emit(int x, int y) {
+        if (runSize > 0 && runX[runSize - 1] == x && runY[runSize - 1] == y) {
+            return;
+        }
+        if (runSize == runX.length) {
+            runX = Arrays.copyOf(runX, 2 * runSize);
+            runY = Arrays.copyOf(runY, 2 * runSize);
+        }
+        runX[runSize] = x;
+        runY[runSize] = y;
+        runSize++;
+    }
+
+    /**
+     * Pass the current run to the sink and start a new one.
+     */
+    private void endRun() {
+        flushColumn();
+        if (runSize == 1) {
+            // Degenerated to a single pixel, still draw that pixel
+            runX[1] = runX[0];
+            runY[1] = runY[0];
+            runSize = 2;
+        }
+        if (runSize > 1) {
+            sink.drawPolyline(runX, runY, runSize);
+        }
+        runSize = 0;
+    }
+}
@@ -0,0 +1,321 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+import org.apache.commons.lang3.Validate;
+import ui.PickingService;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Triangle mesh for geometry which changes every frame. The (direct) vertex and index buffers are allocated once
+ * with a fixed capacity and written in place, so animating the mesh does not allocate buffers. Changed vertex
+ * ranges are tracked per buffer: only changed buffers are uploaded again, and the bounding box is usually only
+ * extended by the changed positions (see update()). The picking hierarchy of the mesh (PickingService.getInstance())
+ * is refitted or rebuilt as well.
+ * <p>
+ * Write the data and call update() on the jMonkey thread, e.g. in Scene3D.update().
+ */
+public class DynamicMesh {
+
+  /**
+   * The bounding box is recomputed from all positions once the positions changed since the last recomputation
+   * cover this fraction of the vertices, or after this many partial updates.
+   */
+  private static final float BOUND_RECOMPUTE_FRACTION = 0.5f;
+  private static final int MAX_PARTIAL_BOUND_UPDATES = 60;
+
+  private final Mesh mesh = new Mesh();
+
+  private final Geometry geometry;
+
+  private final FloatBuffer positions, normals, colors;
+
+  private final IntBuffer indices;
+
+  private int vertexCount, indexCount;
+
+  /**
+   * Changed vertex ranges [min, max) per buffer, empty if min >= max.
+   */
+  private final DirtyRange positionsDirty = new DirtyRange(), normalsDirty = new DirtyRange(),
+          colorsDirty = new DirtyRange();
+
+  private boolean indicesDirty;
+
+  /**
+   * The vertex or index count changed since the last update.
+   */
+  private boolean vertexCountChanged, indexCountChanged;
+
+  /**
+   * Bounding box of the positions, see update().
+   */
+  private final BoundingBox bound = new BoundingBox();
+  private final Vector3f boundMin = new Vector3f(), boundMax = new Vector3f();
+
+  /**
+   * The bounding box must be recomputed from all positions.
+   */
+  private boolean boundInvalid = true;
+
+  /**
+   * Changed positions and partial bounding box updates since the last recomputation.
+   */
+  private long positionsChangedSinceBound;
+  private int partialBoundUpdates;
+
+  private static class DirtyRange {
+    private int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+    private void add(int from, int to) {
+      min = Math.min(min, from);
+      max = Math.max(max, to);
+    }
+
+    private boolean isEmpty() {
+      return min >= max;
+    }
+
+    private void clear() {
+      min = Integer.MAX_VALUE;
+      max = Integer.MIN_VALUE;
+    }
+  }
+
+  /**
+   * @param withColors The mesh has per-vertex colors.
+   */
+  public DynamicMesh(String name, int vertexCapacity, int indexCapacity, boolean withColors) {
+    Validate.isTrue(vertexCapacity > 0 && indexCapacity > 0, "capacities must be positive");
+    positions = BufferUtils.createFloatBuffer(3 * vertexCapacity);
+    normals = BufferUtils.createFloatBuffer(3 * vertexCapacity);
+    colors = withColors ? BufferUtils.createFloatBuffer(4 * vertexCapacity) : null;
+    indices = BufferUtils.createIntBuffer(indexCapacity);
+    positions.limit(0);
+    normals.limit(0);
+    if (colors != null) {
+      colors.limit(0);
+    }
+    indices.limit(0);
+    mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+    mesh.setBuffer(VertexBuffer.Type.Normal, 3, normals);
+    if (colors != null) {
+      mesh.setBuffer(VertexBuffer.Type.Color, 4, colors);
+    }
+    mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+    mesh.setDynamic();
+    mesh.updateCounts();
+    geometry = new Geometry(name, mesh);
+    geometry.setModelBound(bound);
+  }
+
+  public Geometry getGeometry() {
+    return geometry;
+  }
+
+  public Mesh getMesh() {
+    return mesh;
+  }
+
+  public int getVertexCapacity() {
+    return positions.capacity() / 3;
+  }
+
+  public int getIndexCapacity() {
+    return indices.capacity();
+  }
+
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  public int getIndexCount() {
+    return indexCount;
+  }
+
+  /**
+   * Set the number of used vertices (at most the vertex capacity). New vertices are undefined until written.
+   */
+  public void setVertexCount(int vertexCount) {
+    Validate.isTrue(vertexCount >= 0 && vertexCount <= getVertexCapacity(), "vertex count exceeds the capacity");
+    if (vertexCount == this.vertexCount) {
+      return;
+    }
+    if (vertexCount < this.vertexCount) {
+      // Removed vertices may have defined the bounding box
+      boundInvalid = true;
+    }
+    this.vertexCount = vertexCount;
+    positions.limit(3 * vertexCount);
+    normals.limit(3 * vertexCount);
+    if (colors != null) {
+      colors.limit(4 * vertexCount);
+    }
+    vertexCountChanged = true;
+  }
+
+  /**
+   * Set the number of used indices (at most the index capacity, multiple of 3).
+   */
+  public void setIndexCount(int indexCount) {
+    Validate.isTrue(indexCount >= 0 && indexCount <= getIndexCapacity() && indexCount % 3 == 0,
+            "invalid index count");
+    if (indexCount == this.indexCount) {
+      return;
+    }
+    this.indexCount = indexCount;
+    indices.limit(indexCount);
+    indexCountChanged = true;
+  }
+
+  public void setPosition(int vertex, float x, float y, float z) {
+    positions.put(3 * vertex, x).put(3 * vertex + 1, y).put(3 * vertex + 2, z);
+    positionsDirty.add(vertex, vertex + 1);
+  }
+
+  public void setNormal(int vertex, float x, float y, float z) {
+    normals.put(3 * vertex, x).put(3 * vertex + 1, y).put(3 * vertex + 2, z);
+    normalsDirty.add(vertex, vertex + 1);
+  }
+
+  public void setColor(int vertex, float r, float g, float b, float a) {
+    Validate.validState(colors != null, "the mesh has no colors");
+    colors.put(4 * vertex, r).put(4 * vertex + 1, g).put(4 * vertex + 2, b).put(4 * vertex + 3, a);
+    colorsDirty.add(vertex, vertex + 1);
+  }
+
+  public void setTriangle(int triangle, int a, int b, int c) {
+    indices.put(3 * triangle, a).put(3 * triangle + 1, b).put(3 * triangle + 2, c);
+    indicesDirty = true;
+  }
+
+  /**
+   * Direct access to the positions (x, y, z per vertex) for bulk writes, use absolute puts and report the written
+   * range using markPositionsChanged().
+   */
+  public FloatBuffer getPositions() {
+    return positions;
+  }
+
+  /**
+   * Direct access to the normals (x, y, z per vertex), see getPositions().
+   */
+  public FloatBuffer getNormals() {
+    return normals;
+  }
+
+  /**
+   * Direct access to the indices (3 per triangle), see getPositions().
+   */
+  public IntBuffer getIndices() {
+    return indices;
+  }
+
+  /**
+   * The positions of the vertices in [from, to) have been written.
+   */
+  public void markPositionsChanged(int from, int to) {
+    positionsDirty.add(from, to);
+  }
+
+  /**
+   * The normals of the vertices in [from, to) have been written.
+   */
+  public void markNormalsChanged(int from, int to) {
+    normalsDirty.add(from, to);
+  }
+
+  public void markIndicesChanged() {
+    indicesDirty = true;
+  }
+
+  /**
+   * Hand the changes to the renderer and update the bounding box (jMonkey thread). Only the changed buffers are
+   * uploaded. The bounding box is extended by the changed positions. Since it can only grow this way, it is
+   * recomputed from all positions if vertices were removed, once the changes since the last recomputation cover
+   * a large part of the mesh, and at least every MAX_PARTIAL_BOUND_UPDATES updates.
+   */
+  public void update() {
+    boolean positionsChanged = !positionsDirty.isEmpty() || vertexCountChanged;
+    boolean trianglesChanged = indicesDirty || indexCountChanged || vertexCountChanged;
+    if (!positionsDirty.isEmpty() || vertexCountChanged) {
+      if (!positionsDirty.isEmpty() || boundInvalid) {
+        updateBound();
+      }
+      mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+      mesh.clearCollisionData();
+      positionsDirty.clear();
+    }
+    if (!normalsDirty.isEmpty() || vertexCountChanged) {
+      mesh.getBuffer(VertexBuffer.Type.Normal).updateData(normals);
+      normalsDirty.clear();
+    }
+    if (colors != null && (!colorsDirty.isEmpty() || vertexCountChanged)) {
+      mesh.getBuffer(VertexBuffer.Type.Color).updateData(colors);
+      colorsDirty.clear();
+    }
+    if (indicesDirty || indexCountChanged) {
+      mesh.getBuffer(VertexBuffer.Type.Index).updateData(indices);
+      mesh.clearCollisionData();
+      indicesDirty = false;
+    }
+    if (vertexCountChanged || indexCountChanged) {
+      mesh.updateCounts();
+      vertexCountChanged = false;
+      indexCountChanged = false;
+    }
+    // Cheap if the mesh has not been picked yet
+    if (trianglesChanged) {
+      PickingService.getInstance().invalidate(mesh);
+    } else if (positionsChanged) {
+      PickingService.getInstance().refit(mesh);
+    }
+  }
+
+  /**
+   * Current bounding box (model coordinates).
+   */
+  public BoundingBox getBound() {
+    return bound;
+  }
+
+  private void updateBound() {
+    int from = Math.max(0, positionsDirty.min);
+    int to = Math.min(vertexCount, positionsDirty.max);
+    positionsChangedSinceBound += Math.max(0, to - from);
+    partialBoundUpdates++;
+    if (boundInvalid || positionsChangedSinceBound >= BOUND_RECOMPUTE_FRACTION * vertexCount
+            || partialBoundUpdates > MAX_PARTIAL_BOUND_UPDATES) {
+      // Recompute from scratch, this also shrinks the box. The cost is amortized by the partial updates.
+      from = 0;
+      to = vertexCount;
+      positionsChangedSinceBound = 0;
+      partialBoundUpdates = 0;
+      boundMin.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+      boundMax.set(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+    }
+    for (int i = 3 * from; i < 3 * to; i += 3) {
+      float x = positions.get(i), y = positions.get(i + 1), z = positions.get(i + 2);
+      boundMin.set(Math.min(boundMin.x, x), Math.min(boundMin.y, y), Math.min(boundMin.z, z));
+      boundMax.set(Math.max(boundMax.x, x), Math.max(boundMax.y, y), Math.max(boundMax.z, z));
+    }
+    if (vertexCount == 0) {
+      boundMin.set(0, 0, 0);
+      boundMax.set(0, 0, 0);
+    }
+    boundInvalid = false;
+    bound.setMinMax(boundMin, boundMax);
+    geometry.setModelBound(bound);
+  }
+}
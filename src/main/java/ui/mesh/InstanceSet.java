@@ -0,0 +1,156 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.material.Material;
+import com.jme3.math.Quaternion;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.instancing.InstancedNode;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Many copies of the same mesh with the same material, rendered with hardware instancing: all instances share
+ * one mesh and one material and are drawn with a single draw call per instanced geometry. Instances are placed
+ * via handles or in bulk from an array of transforms.
+ * <p>
+ * Use on the jMonkey thread, e.g. in Scene3D.init(). Call instance() after adding instances.
+ */
+public class InstanceSet {
+
+  /**
+   * Layout of a transform in the transform arrays: translation (x, y, z), rotation quaternion (x, y, z, w),
+   * scale (x, y, z).
+   */
+  public static final int FLOATS_PER_TRANSFORM = 10;
+
+  /**
+   * Placement of a single instance.
+   */
+  public static class Handle {
+    private final Geometry geometry;
+
+    private Handle(Geometry geometry) {
+      this.geometry = geometry;
+    }
+
+    public void setTranslation(float x, float y, float z) {
+      geometry.setLocalTranslation(x, y, z);
+    }
+
+    public void setRotation(Quaternion rotation) {
+      geometry.setLocalRotation(rotation);
+    }
+
+    public void setScale(float x, float y, float z) {
+      geometry.setLocalScale(x, y, z);
+    }
+
+    /**
+     * Set the transform from the array (FLOATS_PER_TRANSFORM values starting at offset).
+     */
+    public void setTransform(float[] transforms, int offset) {
+      geometry.setLocalTranslation(transforms[offset], transforms[offset + 1], transforms[offset + 2]);
+      Quaternion rotation = geometry.getLocalRotation();
+      rotation.set(transforms[offset + 3], transforms[offset + 4], transforms[offset + 5], transforms[offset + 6]);
+      geometry.setLocalRotation(rotation);
+      geometry.setLocalScale(transforms[offset + 7], transforms[offset + 8], transforms[offset + 9]);
+    }
+
+    public Geometry getGeometry() {
+      return geometry;
+    }
+  }
+
+  private final InstancedNode node;
+
+  private final Mesh mesh;
+
+  private final Material material;
+
+  private final List<Handle> handles = new ArrayList<>();
+
+  /**
+   * Instancing is enabled on the material, so it must be based on a material definition which supports
+   * instancing (e.g. Unshaded.j3md or Lighting.j3md).
+   */
+  public InstanceSet(String name, Mesh mesh, Material material) {
+    Validate.notNull(mesh, "mesh must not be null");
+    Validate.notNull(material, "material must not be null");
+    this.node = new InstancedNode(name);
+    this.mesh = mesh;
+    this.material = material;
+    material.setBoolean("UseInstancing", true);
+  }
+
+  /**
+   * Scene graph node containing the instances, attach it to the scene.
+   */
+  public Node getNode() {
+    return node;
+  }
+
+  /**
+   * Add an instance with the identity transform.
+   */
+  public Handle add() {
+    Geometry geometry = new Geometry(node.getName() + "-" + handles.size(), mesh);
+    geometry.setMaterial(material);
+    node.attachChild(geometry);
+    Handle handle = new Handle(geometry);
+    handles.add(handle);
+    return handle;
+  }
+
+  /**
+   * Add one instance per transform in the array (FLOATS_PER_TRANSFORM values each).
+   */
+  public void addAll(float[] transforms) {
+    Validate.isTrue(transforms.length % FLOATS_PER_TRANSFORM == 0, "invalid transform array length");
+    for (int offset = 0; offset < transforms.length; offset += FLOATS_PER_TRANSFORM) {
+      add().setTransform(transforms, offset);
+    }
+  }
+
+  /**
+   * Update the transforms of the first transforms.length / FLOATS_PER_TRANSFORM instances.
+   */
+  public void setTransforms(float[] transforms) {
+    Validate.isTrue(transforms.length % FLOATS_PER_TRANSFORM == 0, "invalid transform array length");
+    Validate.isTrue(transforms.length / FLOATS_PER_TRANSFORM <= handles.size(), "more transforms than instances");
+    for (int i = 0; i < transforms.length / FLOATS_PER_TRANSFORM; i++) {
+      handles.get(i).setTransform(transforms, i * FLOATS_PER_TRANSFORM);
+    }
+  }
+
+  public Handle get(int index) {
+    return handles.get(index);
+  }
+
+  /**
+   * Remove the instance. Removing an instance changes the indices of the following instances.
+   */
+  public void remove(Handle handle) {
+    if (handles.remove(handle)) {
+      handle.geometry.removeFromParent();
+    }
+  }
+
+  public int size() {
+    return handles.size();
+  }
+
+  /**
+   * Group the added instances into instanced geometries. Required after adding instances.
+   */
+  public void instance() {
+    node.instance();
+  }
+}
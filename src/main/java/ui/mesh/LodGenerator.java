@@ -0,0 +1,220 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.LodControl;
+import com.jme3.scene.instancing.InstancedGeometry;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferUtils;
+import misc.Logger;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Generates levels of detail for the meshes of a scene graph: reduced index buffers are computed by the
+ * MeshSimplifier and a distance-based LodControl selects the level per frame. The levels are cached per mesh, so
+ * geometries sharing a mesh (e.g. clones of a model) share its levels.
+ * <p>
+ * Simplifying a dense mesh takes seconds, so computeLevels() runs it on the given executor: only the mesh data is
+ * copied on the calling thread. applyLevels() then sets the levels and adds the LodControl. Call both on the
+ * jMonkey thread, e.g. after Scene3D.init(). Meshes whose vertices change (DynamicMesh) must be marked using
+ * StaticBatcher.markDynamic().
+ */
+public class LodGenerator {
+
+  /**
+   * Meshes with fewer triangles are not reduced.
+   */
+  public static final int MIN_TRIANGLES = 1000;
+
+  /**
+   * Triangle counts of the levels relative to the full mesh.
+   */
+  private static final float[] LEVEL_RATIOS = {0.5f, 0.25f, 0.1f, 0.04f};
+
+  /**
+   * Allowed errors of the levels relative to the bounding box diagonal of the mesh.
+   */
+  private static final float[] LEVEL_ERRORS = {0.002f, 0.005f, 0.01f, 0.02f};
+
+  /**
+   * A level is only added if it has at most this fraction of the triangles of the previous level.
+   */
+  private static final float MIN_REDUCTION = 0.8f;
+
+  /**
+   * Levels per mesh (level 0 is the full index buffer, no levels if the mesh can not be reduced or the
+   * simplification failed), meshes are compared by identity. jMonkey thread only.
+   */
+  private static final Map<Mesh, CompletableFuture<VertexBuffer[]>> levelsPerMesh = new WeakHashMap<>();
+
+  /**
+   * Generate the levels for all candidate geometries below root on the calling thread, see findCandidates().
+   *
+   * @return Number of geometries with levels of detail.
+   */
+  public static int generate(Node root) {
+    int count = 0;
+    for (Geometry geometry : findCandidates(root)) {
+      if (applyLevels(geometry, computeLevels(geometry.getMesh(), Runnable::run).join())) {
+        count++;
+      }
+    }
+    Logger.getInstance().msg("Levels of detail generated for " + count + " geometries");
+    return count;
+  }
+
+  /**
+   * Geometries below root which get levels of detail: indexed triangle meshes with at least MIN_TRIANGLES
+   * triangles which are neither instanced nor marked dynamic and have no LodControl yet.
+   */
+  public static List<Geometry> findCandidates(Node root) {
+    List<Geometry> candidates = new ArrayList<>();
+    collectCandidates(root, candidates);
+    return candidates;
+  }
+
+  /**
+   * Start computing the levels of the mesh on the executor, or return the cached computation. The mesh data is
+   * copied on the calling thread, so the mesh may be used while the levels are computed.
+   *
+   * @return Completed with the levels, pass them to applyLevels().
+   */
+  public static CompletableFuture<VertexBuffer[]> computeLevels(Mesh mesh, Executor executor) {
+    CompletableFuture<VertexBuffer[]> levels = levelsPerMesh.get(mesh);
+    if (levels == null) {
+      MeshData data = new MeshData(mesh);
+      levels = CompletableFuture.supplyAsync(data::computeLevels, executor).exceptionally(e -> {
+        Logger.getInstance().error("Level of detail generation failed: " + e.getCause());
+        return new VertexBuffer[0];
+      });
+      levelsPerMesh.put(mesh, levels);
+    }
+    return levels;
+  }
+
+  /**
+   * Set the computed levels of the mesh of the geometry and add a LodControl (jMonkey thread).
+   *
+   * @return The mesh has levels of detail.
+   */
+  public static boolean applyLevels(Geometry geometry, VertexBuffer[] levels) {
+    if (levels.length < 2) {
+      return false;
+    }
+    Mesh mesh = geometry.getMesh();
+    if (mesh.getNumLodLevels() != levels.length) {
+      mesh.setLodLevels(levels);
+    }
+    geometry.addControl(new LodControl());
+    return true;
+  }
+
+  /**
+   * Drop the cached levels of the mesh, e.g. after changing its vertices.
+   */
+  public static void invalidate(Mesh mesh) {
+    levelsPerMesh.remove(mesh);
+  }
+
+  private static void collectCandidates(Spatial spatial, List<Geometry> candidates) {
+    if (StaticBatcher.isMarkedDynamic(spatial) || spatial.getControl(LodControl.class) != null) {
+      return;
+    }
+    if (spatial instanceof Node) {
+      for (Spatial child : ((Node) spatial).getChildren()) {
+        collectCandidates(child, candidates);
+      }
+    } else if (spatial instanceof Geometry && !(spatial instanceof InstancedGeometry)) {
+      Mesh mesh = ((Geometry) spatial).getMesh();
+      // Meshes with their own levels (e.g. loaded from a model file) are kept
+      if (mesh != null && mesh.getMode() == Mesh.Mode.Triangles && mesh.getIndexBuffer() != null
+              && mesh.getBuffer(VertexBuffer.Type.Position) != null && mesh.getTriangleCount() >= MIN_TRIANGLES
+              && (mesh.getNumLodLevels() == 0 || levelsPerMesh.containsKey(mesh))) {
+        candidates.add((Geometry) spatial);
+      }
+    }
+  }
+
+  /**
+   * Copy of the mesh data required for the simplification, taken on the jMonkey thread.
+   */
+  private static class MeshData {
+    private final float[] positions;
+    private final int[] indices;
+    private final VertexBuffer indexBuffer;
+
+    /**
+     * Bounding box diagonal.
+     */
+    private final float size;
+
+    private MeshData(Mesh mesh) {
+      FloatBuffer positionBuffer = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+      positions = new float[positionBuffer.limit()];
+      positionBuffer.duplicate().rewind().get(positions);
+      IndexBuffer meshIndices = mesh.getIndexBuffer();
+      indices = new int[meshIndices.size() / 3 * 3];
+      for (int i = 0; i < indices.length; i++) {
+        indices[i] = meshIndices.get(i);
+      }
+      indexBuffer = mesh.getBuffer(VertexBuffer.Type.Index);
+
+      mesh.updateBound();
+      BoundingVolume bound = mesh.getBound();
+      size = bound instanceof BoundingBox ? 2 * ((BoundingBox) bound).getExtent(null).length() : 1;
+    }
+
+    /**
+     * Compute the levels, only the full index buffer if the mesh can not be reduced (any thread).
+     */
+    private VertexBuffer[] computeLevels() {
+      List<VertexBuffer> levels = new ArrayList<>();
+      levels.add(indexBuffer);
+      MeshSimplifier simplifier = new MeshSimplifier(positions, indices);
+      int previousTriangles = indices.length / 3;
+      for (int level = 0; level < LEVEL_RATIOS.length; level++) {
+        int[] reduced = simplifier.simplify((int) (LEVEL_RATIOS[level] * indices.length / 3),
+                LEVEL_ERRORS[level] * size);
+        if (reduced.length == 0 || reduced.length / 3 > MIN_REDUCTION * previousTriangles) {
+          break;
+        }
+        levels.add(createIndexBuffer(reduced, positions.length / 3));
+        previousTriangles = reduced.length / 3;
+      }
+      return levels.toArray(new VertexBuffer[0]);
+    }
+  }
+
+  private static VertexBuffer createIndexBuffer(int[] indices, int vertexCount) {
+    VertexBuffer buffer = new VertexBuffer(VertexBuffer.Type.Index);
+    if (vertexCount <= 0xffff) {
+      short[] shortIndices = new short[indices.length];
+      for (int i = 0; i < indices.length; i++) {
+        shortIndices[i] = (short) indices[i];
+      }
+      buffer.setupData(VertexBuffer.Usage.Static, 3, VertexBuffer.Format.UnsignedShort,
+              BufferUtils.createShortBuffer(shortIndices));
+    } else {
+      buffer.setupData(VertexBuffer.Usage.Static, 3, VertexBuffer.Format.UnsignedInt,
+              BufferUtils.createIntBuffer(indices));
+    }
+    return buffer;
+  }
+}
@@ -0,0 +1,571 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+
+/**
+ * Simplifies triangle meshes by quadric error edge collapse (Garland, Heckbert: Surface Simplification Using
+ * Quadric Error Metrics, 1997). Vertices are removed but never moved: an edge (u, v) collapses onto v, so the
+ * simplified index buffers refer to the original vertices and can be used as LOD levels of the mesh.
+ * <p>
+ * The error of a vertex is the square root of the sum of the squared distances to the planes of all original
+ * triangles merged into it, so it bounds the distance to each of these planes. Boundary edges add planes
+ * perpendicular to their triangle, vertices sharing their position with other vertices (seams of texture
+ * coordinates or normals) are never removed, so no cracks open.
+ * <p>
+ * Simplification is incremental: each call of simplify() continues with the result of the previous call, so the
+ * levels of a mesh are computed by calls with decreasing triangle counts.
+ */
+public class MeshSimplifier {
+
+  /**
+   * Coefficients of a symmetric 4x4 quadric: a2, ab, ac, ad, b2, bc, bd, c2, cd, d2.
+   */
+  private static final int QUADRIC_SIZE = 10;
+
+  /**
+   * Collapses which shrink a triangle to less than this fraction of its area are rejected.
+   */
+  private static final double MIN_AREA_RATIO = 1e-6;
+
+  private final float[] positions;
+
+  /**
+   * Vertex indices of the triangles (3 per triangle), updated by the collapses.
+   */
+  private final int[] triangles;
+
+  private final boolean[] triangleRemoved;
+
+  private int triangleCount;
+
+  private final double[] quadrics;
+
+  /**
+   * Vertices which must not be removed.
+   */
+  private final boolean[] locked;
+
+  private final boolean[] vertexRemoved;
+
+  /**
+   * Incremented when the quadric or neighborhood of the vertex changes, invalidates queued collapses.
+   */
+  private final int[] vertexVersion;
+
+  /**
+   * Triangles per vertex, may contain removed triangles.
+   */
+  private final int[][] vertexTriangles;
+  private final int[] vertexTriangleCount;
+
+  /**
+   * Marks for neighborhood queries: a vertex is marked if its mark equals the current stamp.
+   */
+  private final int[] marks;
+  private int stamp = 0;
+
+  private final CollapseQueue queue = new CollapseQueue();
+
+  /**
+   * Scratch triangle normals, the collapse checks run for every neighbor triangle of every candidate.
+   */
+  private final double[] normalScratch = new double[3], collapsedNormalScratch = new double[3];
+
+  /**
+   * Largest squared error of all collapses so far.
+   */
+  private double maxCost = 0;
+
+  /**
+   * Candidate collapses ordered by their cost. Entries become stale when one of the vertices changes, they are
+   * skipped when they are polled.
+   */
+  private static class CollapseQueue {
+    private double[] costs = new double[16];
+    private int[] from = new int[16], to = new int[16], fromVersion = new int[16], toVersion = new int[16];
+    private int size = 0;
+
+    private void add(double cost, int u, int v, int uVersion, int vVersion) {
+      if (size == costs.length) {
+        int capacity = 2 * size;
+        costs = Arrays.copyOf(costs, capacity);
+        from = Arrays.copyOf(from, capacity);
+        to = Arrays.copyOf(to, capacity);
+        fromVersion = Arrays.copyOf(fromVersion, capacity);
+        toVersion = Arrays.copyOf(toVersion, capacity);
+      }
+      int i = size++;
+      while (i > 0) {
+        int parent = (i - 1) / 2;
+        if (costs[parent] <= cost) {
+          break;
+        }
+        move(parent, i);
+        i = parent;
+      }
+      set(i, cost, u, v, uVersion, vVersion);
+    }
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    /**
+     * Remove the first entry, its data remains readable at index size.
+     */
+    private void removeFirst() {
+      size--;
+      double cost = costs[size];
+      int u = from[size], v = to[size], uVersion = fromVersion[size], vVersion = toVersion[size];
+      // The first entry is moved to the free slot at size
+      swap(0, size);
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && costs[child + 1] < costs[child]) {
+          child++;
+        }
+        if (costs[child] >= cost) {
+          break;
+        }
+        move(child, i);
+        i = child;
+      }
+      if (size > 0) {
+        set(i, cost, u, v, uVersion, vVersion);
+      }
+    }
+
+    private void set(int i, double cost, int u, int v, int uVersion, int vVersion) {
+      costs[i] = cost;
+      from[i] = u;
+      to[i] = v;
+      fromVersion[i] = uVersion;
+      toVersion[i] = vVersion;
+    }
+
+    private void move(int source, int target) {
+      set(target, costs[source], from[source], to[source], fromVersion[source], toVersion[source]);
+    }
+
+    private void swap(int i, int j) {
+      double cost = costs[i];
+      int u = from[i], v = to[i], uVersion = fromVersion[i], vVersion = toVersion[i];
+      move(j, i);
+      set(j, cost, u, v, uVersion, vVersion);
+    }
+  }
+
+  /**
+   * @param positions Vertex positions (x, y, z per vertex).
+   * @param indices   Vertex indices of the triangles (3 per triangle).
+   */
+  public MeshSimplifier(float[] positions, int[] indices) {
+    Validate.isTrue(positions.length % 3 == 0, "invalid position array length");
+    Validate.isTrue(indices.length % 3 == 0, "invalid index array length");
+    int vertexCount = positions.length / 3;
+    this.positions = positions;
+    this.triangles = indices.clone();
+    this.triangleCount = indices.length / 3;
+    this.triangleRemoved = new boolean[triangleCount];
+    this.quadrics = new double[QUADRIC_SIZE * vertexCount];
+    this.locked = new boolean[vertexCount];
+    this.vertexRemoved = new boolean[vertexCount];
+    this.vertexVersion = new int[vertexCount];
+    this.marks = new int[vertexCount];
+    this.vertexTriangleCount = new int[vertexCount];
+    this.vertexTriangles = new int[vertexCount][];
+
+    for (int index : triangles) {
+      Validate.isTrue(index >= 0 && index < vertexCount, "vertex index out of range");
+      vertexTriangleCount[index]++;
+    }
+    for (int v = 0; v < vertexCount; v++) {
+      vertexTriangles[v] = new int[Math.max(1, vertexTriangleCount[v])];
+      vertexTriangleCount[v] = 0;
+    }
+    double[] plane = new double[4];
+    for (int t = 0; t < triangleCount; t++) {
+      if (!computePlane(triangles[3 * t], triangles[3 * t + 1], triangles[3 * t + 2], plane)) {
+        // Degenerate triangles do not constrain their vertices
+        plane[0] = plane[1] = plane[2] = plane[3] = 0;
+      }
+      for (int i = 0; i < 3; i++) {
+        int v = triangles[3 * t + i];
+        addQuadric(v, plane);
+        vertexTriangles[v][vertexTriangleCount[v]++] = t;
+      }
+    }
+    lockCoincidentVertices();
+    addBoundaryQuadrics();
+    for (int v = 0; v < vertexCount; v++) {
+      addCollapses(v, false);
+    }
+  }
+
+  public int getTriangleCount() {
+    return triangleCount;
+  }
+
+  /**
+   * Largest error of the collapses so far (distance, see class comment).
+   */
+  public float getError() {
+    return (float) Math.sqrt(maxCost);
+  }
+
+  /**
+   * Collapse edges until the mesh has at most targetTriangleCount triangles or the next collapse would exceed
+   * maxError (distance, see class comment).
+   *
+   * @return The vertex indices of the remaining triangles.
+   */
+  public int[] simplify(int targetTriangleCount, float maxError) {
+    Validate.isTrue(targetTriangleCount >= 0, "target triangle count must not be negative");
+    Validate.isTrue(maxError >= 0, "max error must not be negative");
+    double maxAllowedCost = (double) maxError * maxError;
+    while (triangleCount > targetTriangleCount && !queue.isEmpty()) {
+      double cost = queue.costs[0];
+      if (cost > maxAllowedCost) {
+        break;
+      }
+      queue.removeFirst();
+      int u = queue.from[queue.size], v = queue.to[queue.size];
+      if (vertexRemoved[u] || vertexRemoved[v] || vertexVersion[u] != queue.fromVersion[queue.size]
+              || vertexVersion[v] != queue.toVersion[queue.size]) {
+        continue;
+      }
+      if (!canCollapse(u, v)) {
+        continue;
+      }
+      collapse(u, v);
+      maxCost = Math.max(maxCost, cost);
+    }
+    return getIndices();
+  }
+
+  /**
+   * Vertex indices of the current triangles.
+   */
+  public int[] getIndices() {
+    int[] indices = new int[3 * triangleCount];
+    int n = 0;
+    for (int t = 0; t < triangleRemoved.length; t++) {
+      if (!triangleRemoved[t]) {
+        indices[n++] = triangles[3 * t];
+        indices[n++] = triangles[3 * t + 1];
+        indices[n++] = triangles[3 * t + 2];
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Collapse u onto v: the triangles containing both are removed, u is replaced by v in the others.
+   */
+  private void collapse(int u, int v) {
+    int[] uTriangles = vertexTriangles[u];
+    for (int i = 0; i < vertexTriangleCount[u]; i++) {
+      int t = uTriangles[i];
+      if (triangleRemoved[t]) {
+        continue;
+      }
+      int corner = cornerOf(t, u);
+      if (cornerOf(t, v) >= 0) {
+        triangleRemoved[t] = true;
+        triangleCount--;
+      } else {
+        triangles[3 * t + corner] = v;
+        addTriangle(v, t);
+      }
+    }
+    for (int i = 0; i < QUADRIC_SIZE; i++) {
+      quadrics[QUADRIC_SIZE * v + i] += quadrics[QUADRIC_SIZE * u + i];
+    }
+    vertexRemoved[u] = true;
+    vertexTriangleCount[u] = 0;
+    compactTriangles(v);
+    vertexVersion[v]++;
+    addCollapses(v, true);
+  }
+
+  /**
+   * Queue the collapses of the edges of v.
+   *
+   * @param all Queue all edges, otherwise only edges to neighbors with a larger index (initialization).
+   */
+  private void addCollapses(int v, boolean all) {
+    nextStamp();
+    int[] vTriangles = vertexTriangles[v];
+    for (int i = 0; i < vertexTriangleCount[v]; i++) {
+      int t = vTriangles[i];
+      if (triangleRemoved[t]) {
+        continue;
+      }
+      for (int corner = 0; corner < 3; corner++) {
+        int w = triangles[3 * t + corner];
+        if (w != v && marks[w] != stamp && (all || w > v)) {
+          marks[w] = stamp;
+          addCollapse(v, w);
+        }
+      }
+    }
+  }
+
+  /**
+   * Queue the cheaper direction of the edge (a, b).
+   */
+  private void addCollapse(int a, int b) {
+    double costAB = locked[a] ? Double.POSITIVE_INFINITY : collapseCost(a, b);
+    double costBA = locked[b] ? Double.POSITIVE_INFINITY : collapseCost(b, a);
+    if (costAB <= costBA && costAB < Double.POSITIVE_INFINITY) {
+      queue.add(costAB, a, b, vertexVersion[a], vertexVersion[b]);
+    } else if (costBA < Double.POSITIVE_INFINITY) {
+      queue.add(costBA, b, a, vertexVersion[b], vertexVersion[a]);
+    }
+  }
+
+  /**
+   * Squared error of collapsing u onto v.
+   */
+  private double collapseCost(int u, int v) {
+    double x = positions[3 * v], y = positions[3 * v + 1], z = positions[3 * v + 2];
+    int qu = QUADRIC_SIZE * u, qv = QUADRIC_SIZE * v;
+    double[] q = quadrics;
+    double cost = (q[qu] + q[qv]) * x * x + 2 * (q[qu + 1] + q[qv + 1]) * x * y
+            + 2 * (q[qu + 2] + q[qv + 2]) * x * z + 2 * (q[qu + 3] + q[qv + 3]) * x
+            + (q[qu + 4] + q[qv + 4]) * y * y + 2 * (q[qu + 5] + q[qv + 5]) * y * z
+            + 2 * (q[qu + 6] + q[qv + 6]) * y + (q[qu + 7] + q[qv + 7]) * z * z
+            + 2 * (q[qu + 8] + q[qv + 8]) * z + (q[qu + 9] + q[qv + 9]);
+    // Rounding may produce slightly negative values
+    return Math.max(0, cost);
+  }
+
+  /**
+   * A collapse must not flip or degenerate triangles and must keep the mesh manifold (link condition: u and v
+   * share only the vertices opposite to their common edge).
+   */
+  private boolean canCollapse(int u, int v) {
+    int sharedTriangles = 0;
+    nextStamp();
+    int[] uTriangles = vertexTriangles[u];
+    for (int i = 0; i < vertexTriangleCount[u]; i++) {
+      int t = uTriangles[i];
+      if (triangleRemoved[t]) {
+        continue;
+      }
+      for (int corner = 0; corner < 3; corner++) {
+        marks[triangles[3 * t + corner]] = stamp;
+      }
+      if (cornerOf(t, v) >= 0) {
+        sharedTriangles++;
+      } else if (flipsOrDegenerates(t, u, v)) {
+        return false;
+      }
+    }
+    int sharedNeighbors = 0;
+    int markedStamp = stamp;
+    nextStamp();
+    int[] vTriangles = vertexTriangles[v];
+    for (int i = 0; i < vertexTriangleCount[v]; i++) {
+      int t = vTriangles[i];
+      if (triangleRemoved[t]) {
+        continue;
+      }
+      for (int corner = 0; corner < 3; corner++) {
+        int w = triangles[3 * t + corner];
+        if (w != u && w != v && marks[w] == markedStamp) {
+          // Counted once: the mark is moved to the current stamp
+          marks[w] = stamp;
+          sharedNeighbors++;
+        }
+      }
+    }
+    return sharedNeighbors <= sharedTriangles;
+  }
+
+  /**
+   * Moving corner u of triangle t to v flips the triangle or shrinks it to (almost) nothing.
+   */
+  private boolean flipsOrDegenerates(int t, int u, int v) {
+    int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+    double[] before = normal(a, b, c, normalScratch);
+    double[] after = normal(a == u ? v : a, b == u ? v : b, c == u ? v : c, collapsedNormalScratch);
+    double dot = before[0] * after[0] + before[1] * after[1] + before[2] * after[2];
+    double lengthBefore = before[0] * before[0] + before[1] * before[1] + before[2] * before[2];
+    double lengthAfter = after[0] * after[0] + after[1] * after[1] + after[2] * after[2];
+    return dot <= 0 || lengthAfter <= MIN_AREA_RATIO * MIN_AREA_RATIO * lengthBefore;
+  }
+
+  /**
+   * Unnormalized normal (cross product of the edges) of the triangle.
+   */
+  private double[] normal(int a, int b, int c, double[] store) {
+    double e1x = positions[3 * b] - positions[3 * a], e1y = positions[3 * b + 1] - positions[3 * a + 1],
+            e1z = positions[3 * b + 2] - positions[3 * a + 2];
+    double e2x = positions[3 * c] - positions[3 * a], e2y = positions[3 * c + 1] - positions[3 * a + 1],
+            e2z = positions[3 * c + 2] - positions[3 * a + 2];
+    store[0] = e1y * e2z - e1z * e2y;
+    store[1] = e1z * e2x - e1x * e2z;
+    store[2] = e1x * e2y - e1y * e2x;
+    return store;
+  }
+
+  /**
+   * Plane (unit normal n, offset d with n * p + d = 0) of the triangle, false if it is degenerate.
+   */
+  private boolean computePlane(int a, int b, int c, double[] plane) {
+    double[] n = normal(a, b, c, normalScratch);
+    double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+    if (length == 0) {
+      return false;
+    }
+    plane[0] = n[0] / length;
+    plane[1] = n[1] / length;
+    plane[2] = n[2] / length;
+    plane[3] = -(plane[0] * positions[3 * a] + plane[1] * positions[3 * a + 1] + plane[2] * positions[3 * a + 2]);
+    return true;
+  }
+
+  private void addQuadric(int v, double[] plane) {
+    double a = plane[0], b = plane[1], c = plane[2], d = plane[3];
+    int q = QUADRIC_SIZE * v;
+    quadrics[q] += a * a;
+    quadrics[q + 1] += a * b;
+    quadrics[q + 2] += a * c;
+    quadrics[q + 3] += a * d;
+    quadrics[q + 4] += b * b;
+    quadrics[q + 5] += b * c;
+    quadrics[q + 6] += b * d;
+    quadrics[q + 7] += c * c;
+    quadrics[q + 8] += c * d;
+    quadrics[q + 9] += d * d;
+  }
+
+  /**
+   * Boundary edges (directed edge v -> w without the opposite edge w -> v in another triangle) get a plane
+   * through the edge perpendicular to the triangle, so the boundary is kept in place.
+   */
+  private void addBoundaryQuadrics() {
+    double[] plane = new double[4];
+    for (int v = 0; v < vertexTriangles.length; v++) {
+      for (int i = 0; i < vertexTriangleCount[v]; i++) {
+        int t = vertexTriangles[v][i];
+        int w = triangles[3 * t + (cornerOf(t, v) + 1) % 3];
+        if (hasOppositeEdge(v, w)) {
+          continue;
+        }
+        double[] n = normal(triangles[3 * t], triangles[3 * t + 1], triangles[3 * t + 2], normalScratch);
+        double ex = positions[3 * w] - positions[3 * v], ey = positions[3 * w + 1] - positions[3 * v + 1],
+                ez = positions[3 * w + 2] - positions[3 * v + 2];
+        double px = ey * n[2] - ez * n[1], py = ez * n[0] - ex * n[2], pz = ex * n[1] - ey * n[0];
+        double length = Math.sqrt(px * px + py * py + pz * pz);
+        if (length == 0) {
+          continue;
+        }
+        plane[0] = px / length;
+        plane[1] = py / length;
+        plane[2] = pz / length;
+        plane[3] = -(plane[0] * positions[3 * v] + plane[1] * positions[3 * v + 1] + plane[2] * positions[3 * v + 2]);
+        addQuadric(v, plane);
+        addQuadric(w, plane);
+      }
+    }
+  }
+
+  /**
+   * Is there a triangle with the directed edge w -> v?
+   */
+  private boolean hasOppositeEdge(int v, int w) {
+    for (int i = 0; i < vertexTriangleCount[v]; i++) {
+      int t = vertexTriangles[v][i];
+      int corner = cornerOf(t, w);
+      if (corner >= 0 && triangles[3 * t + (corner + 1) % 3] == v) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Vertices at the same position as another vertex are locked.
+   */
+  private void lockCoincidentVertices() {
+    int vertexCount = locked.length;
+    long[] keys = new long[vertexCount];
+    for (int v = 0; v < vertexCount; v++) {
+      int hash = Float.floatToIntBits(positions[3 * v] + 0f);
+      hash = 31 * hash + Float.floatToIntBits(positions[3 * v + 1] + 0f);
+      hash = 31 * hash + Float.floatToIntBits(positions[3 * v + 2] + 0f);
+      keys[v] = ((long) hash << 32) | v;
+    }
+    Arrays.sort(keys);
+    int runStart = 0;
+    for (int i = 1; i <= vertexCount; i++) {
+      if (i < vertexCount && (keys[i] >>> 32) == (keys[runStart] >>> 32)) {
+        continue;
+      }
+      // Vertices [runStart, i) have the same hash
+      for (int j = runStart; j < i; j++) {
+        for (int k = j + 1; k < i; k++) {
+          int a = (int) keys[j], b = (int) keys[k];
+          if (positions[3 * a] == positions[3 * b] && positions[3 * a + 1] == positions[3 * b + 1]
+                  && positions[3 * a + 2] == positions[3 * b + 2]) {
+            locked[a] = true;
+            locked[b] = true;
+          }
+        }
+      }
+      runStart = i;
+    }
+  }
+
+  private int cornerOf(int t, int v) {
+    for (int corner = 0; corner < 3; corner++) {
+      if (triangles[3 * t + corner] == v) {
+        return corner;
+      }
+    }
+    return -1;
+  }
+
+  private void addTriangle(int v, int t) {
+    if (vertexTriangleCount[v] == vertexTriangles[v].length) {
+      vertexTriangles[v] = Arrays.copyOf(vertexTriangles[v], 2 * vertexTriangles[v].length);
+    }
+    vertexTriangles[v][vertexTriangleCount[v]++] = t;
+  }
+
+  /**
+   * Remove the removed triangles from the triangle list of v.
+   */
+  private void compactTriangles(int v) {
+    int[] vTriangles = vertexTriangles[v];
+    int n = 0;
+    for (int i = 0; i < vertexTriangleCount[v]; i++) {
+      if (!triangleRemoved[vTriangles[i]]) {
+        vTriangles[n++] = vTriangles[i];
+      }
+    }
+    vertexTriangleCount[v] = n;
+  }
+
+  private void nextStamp() {
+    stamp++;
+    if (stamp == 0) {
+      // Overflow: reset all marks
+      Arrays.fill(marks, 0);
+      stamp = 1;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.material.Material;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.instancing.InstancedNode;
+import jme3tools.optimize.GeometryBatchFactory;
+import misc.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Merges static geometries of a scene graph into few large geometries, one per material and mesh layout, to
+ * reduce the number of draw calls. Geometries are static unless they or one of their ancestors
+ * <ul>
+ *   <li>are marked dynamic (see markDynamic()),</li>
+ *   <li>are culled (CullHint.Always),</li>
+ *   <li>have controls (animation, LOD, ...),</li>
+ *   <li>have local lights (the root lights are global),</li>
+ *   <li>are instanced.</li>
+ * </ul>
+ * Merged geometries keep their world transforms, but can no longer be moved or picked individually.
+ */
+public class StaticBatcher {
+
+  /**
+   * User data key used to mark spatials which must not be merged.
+   */
+  public static final String USER_DATA_DYNAMIC = "StaticBatcher.dynamic";
+
+  /**
+   * Geometries are only merged if their materials are equal (same definition, parameters and render state, not
+   * necessarily the same instance) and they share the render settings, and if their meshes have the same
+   * primitive mode and buffer layout (GeometryBatchFactory can not merge others).
+   */
+  private static class GroupKey {
+    private final Material material;
+    private final int materialHash;
+    private final RenderQueue.Bucket bucket;
+    private final RenderQueue.ShadowMode shadowMode;
+    private final Mesh.Mode mode;
+
+    /**
+     * Number of components per buffer type (indexed by ordinal), 0 if the mesh has no buffer of the type.
+     */
+    private final int[] components = new int[VertexBuffer.Type.values().length];
+
+    private GroupKey(Geometry geometry) {
+      material = geometry.getMaterial();
+      materialHash = Objects.hash(material.getMaterialDef().getAssetName(),
+              material.getAdditionalRenderState().contentHashCode());
+      bucket = geometry.getQueueBucket();
+      shadowMode = geometry.getShadowMode();
+      Mesh mesh = geometry.getMesh();
+      mode = mesh.getMode();
+      for (VertexBuffer buffer : mesh.getBufferList()) {
+        components[buffer.getBufferType().ordinal()] = buffer.getNumComponents();
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof GroupKey)) {
+        return false;
+      }
+      GroupKey key = (GroupKey) o;
+      return (material == key.material || material.contentEquals(key.material)) && bucket == key.bucket
+              && shadowMode == key.shadowMode && mode == key.mode && Arrays.equals(components, key.components);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(materialHash, bucket, shadowMode, mode, Arrays.hashCode(components));
+    }
+  }
+
+  /**
+   * The spatial (and its subtree) is excluded from batching.
+   */
+  public static void markDynamic(Spatial spatial) {
+    spatial.setUserData(USER_DATA_DYNAMIC, true);
+  }
+
+  public static boolean isMarkedDynamic(Spatial spatial) {
+    Boolean dynamic = spatial.getUserData(USER_DATA_DYNAMIC);
+    return dynamic != null && dynamic;
+  }
+
+  /**
+   * Merge the static geometries below root. The merged geometries are attached to root, which should be the
+   * scene root (identity transform).
+   *
+   * @return Number of geometries in the scene graph after batching.
+   */
+  public static int batch(Node root) {
+    int geometriesBefore = countGeometries(root);
+    root.updateGeometricState();
+
+    Map<GroupKey, List<Geometry>> groups = new LinkedHashMap<>();
+    for (Spatial child : root.getChildren()) {
+      collectStatic(child, groups);
+    }
+
+    Node batches = new Node("static batches");
+    for (List<Geometry> group : groups.values()) {
+      if (group.size() < 2) {
+        continue;
+      }
+      for (Geometry batch : GeometryBatchFactory.makeBatches(group)) {
+        batch.setQueueBucket(group.get(0).getQueueBucket());
+        batch.setShadowMode(group.get(0).getShadowMode());
+        batches.attachChild(batch);
+      }
+      group.forEach(Geometry::removeFromParent);
+    }
+    if (batches.getQuantity() > 0) {
+      root.attachChild(batches);
+    }
+
+    int geometriesAfter = countGeometries(root);
+    Logger.getInstance().msg("Static batching: " + geometriesBefore + " -> " + geometriesAfter + " geometries");
+    return geometriesAfter;
+  }
+
+  /**
+   * Collect the static geometries in the subtree grouped by material, render settings and mesh layout.
+   */
+  private static void collectStatic(Spatial spatial, Map<GroupKey, List<Geometry>> groups) {
+    if (isMarkedDynamic(spatial) || spatial.getLocalCullHint() == Spatial.CullHint.Always
+            || spatial.getNumControls() > 0 || spatial.getLocalLightList().size() > 0
+            || spatial instanceof InstancedNode) {
+      return;
+    }
+    if (spatial instanceof Geometry) {
+      Geometry geometry = (Geometry) spatial;
+      if (geometry.getMaterial() != null && geometry.getMesh() != null && !geometry.isGrouped()) {
+        groups.computeIfAbsent(new GroupKey(geometry), key -> new ArrayList<>()).add(geometry);
+      }
+    } else if (spatial instanceof Node) {
+      for (Spatial child : ((Node) spatial).getChildren()) {
+        collectStatic(child, groups);
+      }
+    }
+  }
+
+  private static int countGeometries(Node root) {
+    int[] count = new int[1];
+    root.depthFirstTraversal(spatial -> {
+      if (spatial instanceof Geometry) {
+        count[0]++;
+      }
+    });
+    return count[0];
+  }
+}
@@ -0,0 +1,435 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.raster;
+
+import org.apache.commons.lang3.Validate;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Pure Java rasterizer writing directly into the int pixels of an image. Primitives (pixel coordinates, ARGB
+ * colors) are recorded first. On flush() they are binned into square tiles and the tiles are rasterized in
+ * parallel on the common ForkJoinPool. Within a tile the primitives are drawn in submission order, so the result
+ * does not depend on the tile size. Colors with an alpha value below 255 are blended (source over).
+ */
+public class TileRasterizer {
+
+  public static final int DEFAULT_TILE_SIZE = 64;
+
+  private static final byte POINT = 0, LINE = 1, POLYGON = 2, CIRCLE = 3, FILLED_CIRCLE = 4;
+
+  /**
+   * Target image and its pixels.
+   */
+  private final BufferedImage image;
+  private final int[] pixels;
+  private final int width, height;
+
+  /**
+   * Tile layout.
+   */
+  private final int tileSize, tilesX, tilesY;
+
+  /**
+   * Recorded primitives: type, color, offset of the parameters and bounding box in pixels.
+   */
+  private byte[] types = new byte[256];
+  private int[] colors = new int[256];
+  private int[] offsets = new int[256];
+  private int[] bounds = new int[4 * 256];
+  private int numberOfPrimitives;
+
+  /**
+   * Parameters of the recorded primitives.
+   */
+  private int[] parameters = new int[1024];
+  private int numberOfParameters;
+
+  /**
+   * Maximum number of polygon vertices recorded since the last flush.
+   */
+  private int maxPolygonSize;
+
+  /**
+   * Primitive indices per tile.
+   */
+  private final int[][] tilePrimitives;
+  private final int[] tileSizes;
+
+  public TileRasterizer(int width, int height) {
+    this(width, height, DEFAULT_TILE_SIZE);
+  }
+
+  public TileRasterizer(int width, int height, int tileSize) {
+    Validate.isTrue(width > 0 && height > 0, "size must be positive");
+    Validate.isTrue(tileSize > 0, "tile size must be positive");
+    this.width = width;
+    this.height = height;
+    this.tileSize = tileSize;
+    image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    tilesX = (width + tileSize - 1) / tileSize;
+    tilesY = (height + tileSize - 1) / tileSize;
+    tilePrimitives = new int[tilesX * tilesY][16];
+    tileSizes = new int[tilesX * tilesY];
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * The target image. Call flush() before using it.
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Raw ARGB pixels of the image (row major), e.g. for per-pixel algorithms. Call flush() before accessing the
+   * pixels if primitives were recorded.
+   */
+  public int[] getPixels() {
+    return pixels;
+  }
+
+  /**
+   * Fill the whole image with the color. Discards all recorded primitives.
+   */
+  public void clear(int argb) {
+    numberOfPrimitives = 0;
+    numberOfParameters = 0;
+    maxPolygonSize = 0;
+    Arrays.fill(pixels, argb);
+  }
+
+  /**
+   * Record a filled square of the given size centered at (x, y).
+   */
+  public void drawPoint(int x, int y, int size, int argb) {
+    int half = size / 2;
+    if (addPrimitive(POINT, argb, x - half, y - half, x - half + size - 1, y - half + size - 1)) {
+      addParameters(x - half, y - half, size);
+    }
+  }
+
+  /**
+   * Record a line from (x0, y0) to (x1, y1), including both end points.
+   */
+  public void drawLine(int x0, int y0, int x1, int y1, int argb) {
+    if (addPrimitive(LINE, argb, Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1), Math.max(y0, y1))) {
+      addParameters(x0, y0, x1, y1);
+    }
+  }
+
+  /**
+   * Record a filled polygon (even-odd rule, pixel centers are sampled).
+   */
+  public void fillPolygon(int[] x, int[] y, int n, int argb) {
+    if (n < 3) {
+      return;
+    }
+    int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      minX = Math.min(minX, x[i]);
+      minY = Math.min(minY, y[i]);
+      maxX = Math.max(maxX, x[i]);
+      maxY = Math.max(maxY, y[i]);
+    }
+    if (addPrimitive(POLYGON, argb, minX, minY, maxX, maxY)) {
+      ensureParameterCapacity(2 * n + 1);
+      parameters[numberOfParameters++] = n;
+      for (int i = 0; i < n; i++) {
+        parameters[numberOfParameters++] = x[i];
+        parameters[numberOfParameters++] = y[i];
+      }
+      maxPolygonSize = Math.max(maxPolygonSize, n);
+    }
+  }
+
+  /**
+   * Record a circle outline (one pixel wide) around (cx, cy).
+   */
+  public void drawCircle(int cx, int cy, int radius, int argb) {
+    if (addPrimitive(CIRCLE, argb, cx - radius - 1, cy - radius - 1, cx + radius + 1, cy + radius + 1)) {
+      addParameters(cx, cy, radius);
+    }
+  }
+
+  /**
+   * Record a filled circle around (cx, cy).
+   */
+  public void fillCircle(int cx, int cy, int radius, int argb) {
+    if (addPrimitive(FILLED_CIRCLE, argb, cx - radius, cy - radius, cx + radius, cy + radius)) {
+      addParameters(cx, cy, radius);
+    }
+  }
+
+  /**
+   * Rasterize all recorded primitives into the image (in parallel) and discard them.
+   */
+  public void flush() {
+    if (numberOfPrimitives == 0) {
+      return;
+    }
+    binPrimitives();
+    IntStream.range(0, tilesX * tilesY).parallel().forEach(this::rasterizeTile);
+    numberOfPrimitives = 0;
+    numberOfParameters = 0;
+    maxPolygonSize = 0;
+  }
+
+  /**
+   * Flush and draw the image at (x, y).
+   */
+  public void blit(Graphics gc, int x, int y) {
+    flush();
+    gc.drawImage(image, x, y, null);
+  }
+
+  /**
+   * Record the primitive header if its bounding box intersects the image and it is not fully transparent.
+   *
+   * @return false if the primitive is not visible, its parameters must not be recorded then.
+   */
+  private boolean addPrimitive(byte type, int argb, int minX, int minY, int maxX, int maxY) {
+    if (maxX < 0 || maxY < 0 || minX >= width || minY >= height || (argb >>> 24) == 0) {
+      return false;
+    }
+    if (numberOfPrimitives == types.length) {
+      int capacity = 2 * numberOfPrimitives;
+      types = Arrays.copyOf(types, capacity);
+      colors = Arrays.copyOf(colors, capacity);
+      offsets = Arrays.copyOf(offsets, capacity);
+      bounds = Arrays.copyOf(bounds, 4 * capacity);
+    }
+    int index = numberOfPrimitives++;
+    types[index] = type;
+    colors[index] = argb;
+    offsets[index] = numberOfParameters;
+    bounds[4 * index] = Math.max(minX, 0);
+    bounds[4 * index + 1] = Math.max(minY, 0);
+    bounds[4 * index + 2] = Math.min(maxX, width - 1);
+    bounds[4 * index + 3] = Math.min(maxY, height - 1);
+    return true;
+  }
+
+  private void addParameters(int a, int b, int c) {
+    ensureParameterCapacity(3);
+    parameters[numberOfParameters++] = a;
+    parameters[numberOfParameters++] = b;
+    parameters[numberOfParameters++] = c;
+  }
+
+  private void addParameters(int a, int b, int c, int d) {
+    ensureParameterCapacity(4);
+    parameters[numberOfParameters++] = a;
+    parameters[numberOfParameters++] = b;
+    parameters[numberOfParameters++] = c;
+    parameters[numberOfParameters++] = d;
+  }
+
+  private void ensureParameterCapacity(int additional) {
+    if (numberOfParameters + additional > parameters.length) {
+      parameters = Arrays.copyOf(parameters, Math.max(2 * parameters.length, numberOfParameters + additional));
+    }
+  }
+
+  /**
+   * Assign each primitive to all tiles overlapped by its bounding box.
+   */
+  private void binPrimitives() {
+    Arrays.fill(tileSizes, 0);
+    for (int p = 0; p < numberOfPrimitives; p++) {
+      int tileMinX = bounds[4 * p] / tileSize, tileMinY = bounds[4 * p + 1] / tileSize;
+      int tileMaxX = bounds[4 * p + 2] / tileSize, tileMaxY = bounds[4 * p + 3] / tileSize;
+      for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+        for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+          int tile = ty * tilesX + tx;
+          if (tileSizes[tile] == tilePrimitives[tile].length) {
+            tilePrimitives[tile] = Arrays.copyOf(tilePrimitives[tile], 2 * tileSizes[tile]);
+          }
+          tilePrimitives[tile][tileSizes[tile]++] = p;
+        }
+      }
+    }
+  }
+
+  /**
+   * Rasterize all primitives of the tile, writes are restricted to the tile.
+   */
+  private void rasterizeTile(int tile) {
+    if (tileSizes[tile] == 0) {
+      return;
+    }
+    int minX = (tile % tilesX) * tileSize, minY = (tile / tilesX) * tileSize;
+    Tile t = new Tile(minX, minY, Math.min(minX + tileSize, width) - 1, Math.min(minY + tileSize, height) - 1);
+    for (int i = 0; i < tileSizes[tile]; i++) {
+      int p = tilePrimitives[tile][i];
+      int o = offsets[p];
+      switch (types[p]) {
+        case POINT -> t.fillRect(parameters[o], parameters[o + 1], parameters[o + 2], colors[p]);
+        case LINE -> t.line(parameters[o], parameters[o + 1], parameters[o + 2], parameters[o + 3], colors[p]);
+        case POLYGON -> t.polygon(o, bounds[4 * p + 1], bounds[4 * p + 3], colors[p]);
+        case CIRCLE -> t.circle(parameters[o], parameters[o + 1], parameters[o + 2], false, colors[p]);
+        case FILLED_CIRCLE -> t.circle(parameters[o], parameters[o + 1], parameters[o + 2], true, colors[p]);
+        default -> throw new IllegalStateException("Unknown primitive type " + types[p]);
+      }
+    }
+  }
+
+  /**
+   * Rasterization restricted to one tile (inclusive pixel bounds).
+   */
+  private class Tile {
+    private final int minX, minY, maxX, maxY;
+
+    /**
+     * Scanline intersections of the polygon rasterization, created on demand.
+     */
+    private float[] crossings;
+
+    private Tile(int minX, int minY, int maxX, int maxY) {
+      this.minX = minX;
+      this.minY = minY;
+      this.maxX = maxX;
+      this.maxY = maxY;
+    }
+
+    private void set(int x, int y, int argb) {
+      if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+        write(y * width + x, argb);
+      }
+    }
+
+    /**
+     * Fill the pixels x0..x1 (inclusive) in row y, the row must be inside the tile.
+     */
+    private void span(int x0, int x1, int y, int argb) {
+      x0 = Math.max(x0, minX);
+      x1 = Math.min(x1, maxX);
+      for (int x = x0; x <= x1; x++) {
+        write(y * width + x, argb);
+      }
+    }
+
+    private void fillRect(int x, int y, int size, int argb) {
+      for (int row = Math.max(y, minY); row <= Math.min(y + size - 1, maxY); row++) {
+        span(x, x + size - 1, row, argb);
+      }
+    }
+
+    /**
+     * Each pixel along the major axis is computed independently, so neighbouring tiles produce exactly the pixels
+     * a single pass would produce.
+     */
+    private void line(int x0, int y0, int x1, int y1, int argb) {
+      int dx = x1 - x0, dy = y1 - y0;
+      if (Math.abs(dx) >= Math.abs(dy)) {
+        if (dx == 0) {
+          set(x0, y0, argb);
+          return;
+        }
+        if (dx < 0) {
+          line(x1, y1, x0, y0, argb);
+          return;
+        }
+        for (int x = Math.max(x0, minX); x <= Math.min(x1, maxX); x++) {
+          set(x, y0 + (int) Math.floorDiv(2L * (x - x0) * dy + dx, 2L * dx), argb);
+        }
+      } else {
+        if (dy < 0) {
+          line(x1, y1, x0, y0, argb);
+          return;
+        }
+        for (int y = Math.max(y0, minY); y <= Math.min(y1, maxY); y++) {
+          set(x0 + (int) Math.floorDiv(2L * (y - y0) * dx + dy, 2L * dy), y, argb);
+        }
+      }
+    }
+
+    /**
+     * Even-odd scanline fill of the polygon at parameter offset o covering the rows rowMin..rowMax, sampling the
+     * pixel centers.
+     */
+    private void polygon(int o, int rowMin, int rowMax, int argb) {
+      int n = parameters[o];
+      if (crossings == null || crossings.length < n) {
+        crossings = new float[maxPolygonSize];
+      }
+      for (int y = Math.max(minY, rowMin); y <= Math.min(maxY, rowMax); y++) {
+        float sampleY = y + 0.5f;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+          int j = (i + 1) % n;
+          float ax = parameters[o + 1 + 2 * i], ay = parameters[o + 2 + 2 * i];
+          float bx = parameters[o + 1 + 2 * j], by = parameters[o + 2 + 2 * j];
+          if ((ay <= sampleY && sampleY < by) || (by <= sampleY && sampleY < ay)) {
+            crossings[count++] = ax + (sampleY - ay) * (bx - ax) / (by - ay);
+          }
+        }
+        Arrays.sort(crossings, 0, count);
+        for (int i = 0; i + 1 < count; i += 2) {
+          span((int) Math.ceil(crossings[i] - 0.5f), (int) Math.ceil(crossings[i + 1] - 0.5f) - 1, y, argb);
+        }
+      }
+    }
+
+    /**
+     * Circle rasterized row by row: filled circles cover the pixel centers within the radius, outlines the pixel
+     * centers with a distance in [radius - 0.5, radius + 0.5].
+     */
+    private void circle(int cx, int cy, int radius, boolean filled, int argb) {
+      float outer = filled ? radius : radius + 0.5f;
+      float inner = radius - 0.5f;
+      int rowMin = Math.max(minY, (int) Math.floor(cy - outer));
+      int rowMax = Math.min(maxY, (int) Math.ceil(cy + outer));
+      for (int y = rowMin; y <= rowMax; y++) {
+        float dy = y - cy;
+        float outerSquared = outer * outer - dy * dy;
+        if (outerSquared < 0) {
+          continue;
+        }
+        int outerHalf = (int) Math.sqrt(outerSquared);
+        float innerSquared = inner * inner - dy * dy;
+        int innerHalf = filled || innerSquared < 0 ? 0 : (int) Math.ceil(Math.sqrt(innerSquared));
+        if (innerHalf == 0) {
+          span(cx - outerHalf, cx + outerHalf, y, argb);
+        } else {
+          span(cx - outerHalf, cx - innerHalf, y, argb);
+          span(cx + innerHalf, cx + outerHalf, y, argb);
+        }
+      }
+    }
+  }
+
+  /**
+   * Write (or blend) the color into the pixel.
+   */
+  private void write(int index, int argb) {
+    int alpha = argb >>> 24;
+    if (alpha == 255) {
+      pixels[index] = argb;
+      return;
+    }
+    int dst = pixels[index];
+    int inverse = 255 - alpha;
+    int dstAlpha = dst >>> 24;
+    int outAlpha = alpha + dstAlpha * inverse / 255;
+    int r = (((argb >> 16) & 0xff) * alpha + ((dst >> 16) & 0xff) * inverse) / 255;
+    int g = (((argb >> 8) & 0xff) * alpha + ((dst >> 8) & 0xff) * inverse) / 255;
+    int b = ((argb & 0xff) * alpha + (dst & 0xff) * inverse) / 255;
+    pixels[index] = (outAlpha << 24) | (r << 16) | (g << 8) | b;
+  }
+}
@@ -0,0 +1,283 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.spatial;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Quadtree implementation of the spatial index. Each item is stored in the deepest node that completely contains
+ * its bounds. The root grows automatically if items are inserted outside of the current domain. Moving an item
+ * within its node only updates its bounds, larger moves reinsert the item.
+ *
+ * @param <T> the type of the indexed items
+ */
+public class QuadTree<T> implements SpatialIndex<T> {
+
+  /**
+   * A leaf is split if it contains more items.
+   */
+  private static final int MAX_ITEMS_PER_NODE = 8;
+
+  /**
+   * Nodes at this depth are never split.
+   */
+  private static final int MAX_DEPTH = 16;
+
+  /**
+   * Indexed item with its bounds and the node it is stored in.
+   */
+  private static class Entry<T> {
+    private final T item;
+    private float minX, minY, maxX, maxY;
+    private Node<T> node;
+
+    private Entry(T item) {
+      this.item = item;
+    }
+
+    private boolean intersects(float minX, float minY, float maxX, float maxY) {
+      return this.maxX >= minX && this.minX <= maxX && this.maxY >= minY && this.minY <= maxY;
+    }
+
+    private float distance(float x, float y) {
+      float dx = Math.max(0, Math.max(minX - x, x - maxX));
+      float dy = Math.max(0, Math.max(minY - y, y - maxY));
+      return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+  }
+
+  /**
+   * Square quadtree node.
+   */
+  private static class Node<T> {
+    private final float centerX, centerY, halfSize;
+    private int depth;
+    private final List<Entry<T>> entries = new ArrayList<>();
+
+    /**
+     * Children in the order (-x, -y), (+x, -y), (-x, +y), (+x, +y), null for leafs.
+     */
+    private Node<T>[] children;
+
+    private Node(float centerX, float centerY, float halfSize, int depth) {
+      this.centerX = centerX;
+      this.centerY = centerY;
+      this.halfSize = halfSize;
+      this.depth = depth;
+    }
+
+    private boolean contains(float minX, float minY, float maxX, float maxY) {
+      return minX >= centerX - halfSize && maxX <= centerX + halfSize
+              && minY >= centerY - halfSize && maxY <= centerY + halfSize;
+    }
+
+    private boolean intersects(float minX, float minY, float maxX, float maxY) {
+      return maxX >= centerX - halfSize && minX <= centerX + halfSize
+              && maxY >= centerY - halfSize && minY <= centerY + halfSize;
+    }
+
+    /**
+     * Returns the index of the child quadrant which completely contains the bounds, -1 if there is none.
+     */
+    private int childIndex(float minX, float minY, float maxX, float maxY) {
+      int index;
+      if (maxX < centerX) {
+        index = 0;
+      } else if (minX >= centerX) {
+        index = 1;
+      } else {
+        return -1;
+      }
+      if (maxY < centerY) {
+        return index;
+      } else if (minY >= centerY) {
+        return index + 2;
+      } else {
+        return -1;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void split() {
+      float quarter = halfSize / 2;
+      children = new Node[4];
+      for (int i = 0; i < 4; i++) {
+        children[i] = new Node<>(centerX + ((i & 1) == 0 ? -quarter : quarter),
+                centerY + ((i & 2) == 0 ? -quarter : quarter), quarter, depth + 1);
+      }
+    }
+  }
+
+  /**
+   * Lookup of the entries for the incremental updates.
+   */
+  private final Map<T, Entry<T>> entries = new HashMap<>();
+
+  /**
+   * Root node, null if the tree was never used.
+   */
+  private Node<T> root;
+
+  @Override
+  public void insert(T item, float minX, float minY, float maxX, float maxY) {
+    update(item, minX, minY, maxX, maxY);
+  }
+
+  @Override
+  public void update(T item, float minX, float minY, float maxX, float maxY) {
+    Validate.notNull(item, "item must not be null");
+    Validate.isTrue(Float.isFinite(minX) && Float.isFinite(minY) && Float.isFinite(maxX) && Float.isFinite(maxY)
+            && minX <= maxX && minY <= maxY, "bounds must be finite and non-empty");
+    Entry<T> entry = entries.get(item);
+    if (entry == null) {
+      entry = new Entry<>(item);
+      entries.put(item, entry);
+    } else if (entry.node.contains(minX, minY, maxX, maxY)
+            && (entry.node.children == null || entry.node.childIndex(minX, minY, maxX, maxY) < 0)) {
+      // Still in the correct node: only update the bounds
+      setBounds(entry, minX, minY, maxX, maxY);
+      return;
+    } else {
+      entry.node.entries.remove(entry);
+    }
+    setBounds(entry, minX, minY, maxX, maxY);
+    ensureRootContains(entry);
+    insert(root, entry);
+  }
+
+  @Override
+  public boolean remove(T item) {
+    Entry<T> entry = entries.remove(item);
+    if (entry == null) {
+      return false;
+    }
+    entry.node.entries.remove(entry);
+    return true;
+  }
+
+  @Override
+  public void query(float minX, float minY, float maxX, float maxY, Consumer<T> consumer) {
+    if (root != null) {
+      query(root, minX, minY, maxX, maxY, entry -> consumer.accept(entry.item));
+    }
+  }
+
+  @Override
+  public T nearest(float x, float y, float maxDistance) {
+    if (root == null) {
+      return null;
+    }
+    List<Entry<T>> candidates = new ArrayList<>();
+    query(root, x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, candidates::add);
+    T nearestItem = null;
+    float nearestDistance = maxDistance;
+    for (Entry<T> candidate : candidates) {
+      float distance = candidate.distance(x, y);
+      if (distance <= nearestDistance) {
+        nearestItem = candidate.item;
+        nearestDistance = distance;
+      }
+    }
+    return nearestItem;
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    root = null;
+  }
+
+  private static <T> void setBounds(Entry<T> entry, float minX, float minY, float maxX, float maxY) {
+    entry.minX = minX;
+    entry.minY = minY;
+    entry.maxX = maxX;
+    entry.maxY = maxY;
+  }
+
+  /**
+   * Create or grow the root node until it contains the bounds of the entry.
+   */
+  @SuppressWarnings("unchecked")
+  private void ensureRootContains(Entry<T> entry) {
+    if (root == null) {
+      float halfSize = Math.max(1, Math.max(entry.maxX - entry.minX, entry.maxY - entry.minY));
+      root = new Node<>((entry.minX + entry.maxX) / 2, (entry.minY + entry.maxY) / 2, halfSize, 0);
+      return;
+    }
+    while (!root.contains(entry.minX, entry.minY, entry.maxX, entry.maxY)) {
+      // Double the domain towards the entry, the old root becomes one of the quadrants
+      float dirX = entry.minX < root.centerX - root.halfSize ? -1 : 1;
+      float dirY = entry.minY < root.centerY - root.halfSize ? -1 : 1;
+      Node<T> oldRoot = root;
+      root = new Node<>(oldRoot.centerX + dirX * oldRoot.halfSize, oldRoot.centerY + dirY * oldRoot.halfSize,
+              2 * oldRoot.halfSize, 0);
+      root.children = new Node[4];
+      int oldIndex = (dirX < 0 ? 1 : 0) + (dirY < 0 ? 2 : 0);
+      for (int i = 0; i < 4; i++) {
+        root.children[i] = i == oldIndex ? oldRoot : new Node<>(
+                root.centerX + ((i & 1) == 0 ? -oldRoot.halfSize : oldRoot.halfSize),
+                root.centerY + ((i & 2) == 0 ? -oldRoot.halfSize : oldRoot.halfSize),
+                oldRoot.halfSize, 1);
+      }
+      incrementDepth(oldRoot);
+    }
+  }
+
+  private void incrementDepth(Node<T> node) {
+    node.depth++;
+    if (node.children != null) {
+      for (Node<T> child : node.children) {
+        incrementDepth(child);
+      }
+    }
+  }
+
+  private void insert(Node<T> node, Entry<T> entry) {
+    while (node.children != null) {
+      int index = node.childIndex(entry.minX, entry.minY, entry.maxX, entry.maxY);
+      if (index < 0) {
+        break;
+      }
+      node = node.children[index];
+    }
+    node.entries.add(entry);
+    entry.node = node;
+    if (node.children == null && node.entries.size() > MAX_ITEMS_PER_NODE && node.depth < MAX_DEPTH) {
+      node.split();
+      List<Entry<T>> nodeEntries = new ArrayList<>(node.entries);
+      node.entries.clear();
+      for (Entry<T> nodeEntry : nodeEntries) {
+        insert(node, nodeEntry);
+      }
+    }
+  }
+
+  private void query(Node<T> node, float minX, float minY, float maxX, float maxY, Consumer<Entry<T>> consumer) {
+    for (Entry<T> entry : node.entries) {
+      if (entry.intersects(minX, minY, maxX, maxY)) {
+        consumer.accept(entry);
+      }
+    }
+    if (node.children != null) {
+      for (Node<T> child : node.children) {
+        if (child.intersects(minX, minY, maxX, maxY)) {
+          query(child, minX, minY, maxX, maxY, consumer);
+        }
+      }
+    }
+  }
+}
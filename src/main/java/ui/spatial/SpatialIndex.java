@@ -0,0 +1,80 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.spatial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A 2D spatial index over items with axis-aligned bounds. Used for hit-testing and range queries in 2D scenes.
+ *
+ * @param <T> the type of the indexed items
+ */
+public interface SpatialIndex<T> {
+
+  /**
+   * Adds the item with the given bounds. If the item is already contained, its bounds are updated.
+   */
+  void insert(T item, float minX, float minY, float maxX, float maxY);
+
+  /**
+   * Adds a point item.
+   */
+  default void insert(T item, float x, float y) {
+    insert(item, x, y, x, y);
+  }
+
+  /**
+   * Updates the bounds of the item, e.g. after it was moved. Adds the item if it is not contained.
+   */
+  void update(T item, float minX, float minY, float maxX, float maxY);
+
+  /**
+   * Updates the position of a point item.
+   */
+  default void update(T item, float x, float y) {
+    update(item, x, y, x, y);
+  }
+
+  /**
+   * Removes the item.
+   *
+   * @return true if the item was contained
+   */
+  boolean remove(T item);
+
+  /**
+   * Passes all items whose bounds intersect the given rectangle to the consumer.
+   */
+  void query(float minX, float minY, float maxX, float maxY, Consumer<T> consumer);
+
+  /**
+   * Returns all items whose bounds intersect the given rectangle.
+   */
+  default List<T> query(float minX, float minY, float maxX, float maxY) {
+    List<T> result = new ArrayList<>();
+    query(minX, minY, maxX, maxY, result::add);
+    return result;
+  }
+
+  /**
+   * Returns the item whose bounds are closest to (x, y), items inside the bounds have the distance 0.
+   *
+   * @return null, if no item is closer than maxDistance
+   */
+  T nearest(float x, float y, float maxDistance);
+
+  /**
+   * Number of indexed items.
+   */
+  int size();
+
+  /**
+   * Removes all items.
+   */
+  void clear();
+}
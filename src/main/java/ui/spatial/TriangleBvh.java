@@ -0,0 +1,540 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.spatial;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over a triangle mesh for ray queries. The tree is built using the surface area
+ * heuristic (binned) and stored in flat arrays: each node has a bounding box, and either a range of triangles
+ * (leaf) or the index of its left child (the right child follows directly). After moving vertices, refit()
+ * updates the boxes without rebuilding the tree.
+ * <p>
+ * Queries do not modify the hierarchy and can run in parallel, but not concurrently with refit().
+ */
+public class TriangleBvh {
+
+  /**
+   * Nodes with at most this many triangles are always leaves.
+   */
+  private static final int MAX_LEAF_TRIANGLES = 4;
+
+  /**
+   * Nodes with more triangles are split, even if the surface area heuristic prefers a leaf.
+   */
+  private static final int MAX_SAH_LEAF_TRIANGLES = 16;
+
+  /**
+   * Nodes at this depth are leaves, bounds the size of the traversal stack.
+   */
+  private static final int MAX_DEPTH = 60;
+
+  /**
+   * Number of bins along an axis for the split search.
+   */
+  private static final int BINS = 12;
+
+  /**
+   * Cost of a traversal step relative to a ray-triangle test.
+   */
+  private static final float TRAVERSAL_COST = 1;
+
+  /**
+   * Result of a ray-triangle intersection. The hit point is a * w + b * u + c * v for the triangle corners a, b, c
+   * (in index buffer order).
+   */
+  public static class Hit {
+    private int triangle = -1;
+    private float distance, u, v;
+
+    private void set(int triangle, float distance, float u, float v) {
+      this.triangle = triangle;
+      this.distance = distance;
+      this.u = u;
+      this.v = v;
+    }
+
+    private Hit copy() {
+      Hit copy = new Hit();
+      copy.set(triangle, distance, u, v);
+      return copy;
+    }
+
+    /**
+     * Index of the triangle in the index array (3 indices per triangle).
+     */
+    public int getTriangle() {
+      return triangle;
+    }
+
+    /**
+     * Ray parameter of the hit point: origin + distance * direction.
+     */
+    public float getDistance() {
+      return distance;
+    }
+
+    public float getU() {
+      return u;
+    }
+
+    public float getV() {
+      return v;
+    }
+
+    public float getW() {
+      return 1 - u - v;
+    }
+  }
+
+  /**
+   * Vertex positions (x, y, z per vertex), referenced, not copied.
+   */
+  private final float[] positions;
+
+  /**
+   * Vertex indices, 3 per triangle.
+   */
+  private final int[] indices;
+
+  /**
+   * Triangle indices ordered by leaf, the leaves reference ranges of this array.
+   */
+  private final int[] triangles;
+
+  /**
+   * Node bounding boxes (minX, minY, minZ, maxX, maxY, maxZ per node).
+   */
+  private final float[] bounds;
+
+  /**
+   * Leaf: index of the first triangle in triangles, inner node: index of the left child.
+   */
+  private final int[] firstOrLeft;
+
+  /**
+   * Leaf: number of triangles (> 0), inner node: 0.
+   */
+  private final int[] counts;
+
+  private int nodeCount;
+
+  /**
+   * Traversal stack and scratch hit per query thread, shared by all hierarchies (the stack size only depends on
+   * MAX_DEPTH).
+   */
+  private static class QueryScratch {
+    private final int[] stack = new int[MAX_DEPTH + 2];
+    private final Hit hit = new Hit();
+  }
+
+  private static final ThreadLocal<QueryScratch> queryScratch = ThreadLocal.withInitial(QueryScratch::new);
+
+  /**
+   * Build the hierarchy.
+   *
+   * @param positions Vertex positions (x, y, z per vertex). The array is referenced: after modifying it, call
+   *                  refit().
+   * @param indices   Vertex indices, 3 per triangle.
+   */
+  public TriangleBvh(float[] positions, int[] indices) {
+    Validate.isTrue(positions.length % 3 == 0, "3 coordinates per vertex expected");
+    Validate.isTrue(indices.length % 3 == 0, "3 indices per triangle expected");
+    this.positions = positions;
+    this.indices = indices;
+    int triangleCount = indices.length / 3;
+    triangles = new int[triangleCount];
+    for (int i = 0; i < triangleCount; i++) {
+      triangles[i] = i;
+    }
+    int maxNodes = Math.max(1, 2 * triangleCount - 1);
+    bounds = new float[6 * maxNodes];
+    firstOrLeft = new int[maxNodes];
+    counts = new int[maxNodes];
+    if (triangleCount > 0) {
+      build();
+    }
+  }
+
+  public float[] getPositions() {
+    return positions;
+  }
+
+  public int getTriangleCount() {
+    return triangles.length;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Update the bounding boxes after the positions changed. The tree structure is kept, so queries get slower
+   * if the vertices move a lot relative to each other.
+   */
+  public void refit() {
+    // Children are stored after their parents
+    for (int node = nodeCount - 1; node >= 0; node--) {
+      if (counts[node] > 0) {
+        computeLeafBounds(node);
+      } else {
+        int left = firstOrLeft[node];
+        int o = 6 * node, l = 6 * left, r = 6 * (left + 1);
+        for (int axis = 0; axis < 3; axis++) {
+          bounds[o + axis] = Math.min(bounds[l + axis], bounds[r + axis]);
+          bounds[o + 3 + axis] = Math.max(bounds[l + 3 + axis], bounds[r + 3 + axis]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Find the nearest intersection of the ray with a triangle (both sides) within maxDistance.
+   *
+   * @return true if a triangle was hit, the hit data is written to hit.
+   */
+  public boolean intersectNearest(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance,
+                                  Hit hit) {
+    return traverse(ox, oy, oz, dx, dy, dz, maxDistance, hit, null);
+  }
+
+  /**
+   * Find all intersections of the ray with triangles within maxDistance. The hits are appended to hits ordered
+   * by distance.
+   *
+   * @return Number of hits.
+   */
+  public int intersectAll(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance,
+                          List<Hit> hits) {
+    int before = hits.size();
+    traverse(ox, oy, oz, dx, dy, dz, maxDistance, null, hits);
+    hits.subList(before, hits.size()).sort(Comparator.comparingDouble(Hit::getDistance));
+    return hits.size() - before;
+  }
+
+  /**
+   * Traverse the hierarchy near child first. Finds the nearest hit if nearest is not null, otherwise all hits.
+   */
+  private boolean traverse(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance,
+                           Hit nearest, List<Hit> all) {
+    if (nodeCount == 0) {
+      return false;
+    }
+    // Avoid NaN in the slab test for rays parallel to an axis
+    float invX = 1 / (dx == 0 ? 1e-30f : dx);
+    float invY = 1 / (dy == 0 ? 1e-30f : dy);
+    float invZ = 1 / (dz == 0 ? 1e-30f : dz);
+    float best = maxDistance;
+    boolean found = false;
+    QueryScratch scratch = queryScratch.get();
+    int[] stack = scratch.stack;
+    int stackSize = 0;
+    if (entryDistance(0, ox, oy, oz, invX, invY, invZ, best) < Float.POSITIVE_INFINITY) {
+      stack[stackSize++] = 0;
+    }
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      if (counts[node] > 0) {
+        for (int i = firstOrLeft[node]; i < firstOrLeft[node] + counts[node]; i++) {
+          int triangle = triangles[i];
+          if (nearest != null) {
+            if (intersectTriangle(triangle, ox, oy, oz, dx, dy, dz, best, nearest)) {
+              best = nearest.distance;
+              found = true;
+            }
+          } else {
+            if (intersectTriangle(triangle, ox, oy, oz, dx, dy, dz, best, scratch.hit)) {
+              all.add(scratch.hit.copy());
+              found = true;
+            }
+          }
+        }
+      } else {
+        int left = firstOrLeft[node];
+        float tLeft = entryDistance(left, ox, oy, oz, invX, invY, invZ, best);
+        float tRight = entryDistance(left + 1, ox, oy, oz, invX, invY, invZ, best);
+        // Push the far child first, so the near child is visited first
+        if (tLeft <= tRight) {
+          if (tRight < Float.POSITIVE_INFINITY) {
+            stack[stackSize++] = left + 1;
+          }
+          if (tLeft < Float.POSITIVE_INFINITY) {
+            stack[stackSize++] = left;
+          }
+        } else {
+          if (tLeft < Float.POSITIVE_INFINITY) {
+            stack[stackSize++] = left;
+          }
+          stack[stackSize++] = left + 1;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Distance along the ray to the entry point into the node box, +infinity if the box is missed or entered
+   * after maxDistance.
+   */
+  private float entryDistance(int node, float ox, float oy, float oz, float invX, float invY, float invZ,
+                              float maxDistance) {
+    int o = 6 * node;
+    float t1 = (bounds[o] - ox) * invX, t2 = (bounds[o + 3] - ox) * invX;
+    float tMin = Math.min(t1, t2), tMax = Math.max(t1, t2);
+    t1 = (bounds[o + 1] - oy) * invY;
+    t2 = (bounds[o + 4] - oy) * invY;
+    tMin = Math.max(tMin, Math.min(t1, t2));
+    tMax = Math.min(tMax, Math.max(t1, t2));
+    t1 = (bounds[o + 2] - oz) * invZ;
+    t2 = (bounds[o + 5] - oz) * invZ;
+    tMin = Math.max(tMin, Math.min(t1, t2));
+    tMax = Math.min(tMax, Math.max(t1, t2));
+    tMin = Math.max(tMin, 0);
+    return tMin <= tMax && tMin <= maxDistance ? tMin : Float.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Moeller-Trumbore ray-triangle intersection (both sides). Writes the hit if it is closer than maxDistance.
+   */
+  private boolean intersectTriangle(int triangle, float ox, float oy, float oz, float dx, float dy, float dz,
+                                    float maxDistance, Hit hit) {
+    int a = 3 * indices[3 * triangle], b = 3 * indices[3 * triangle + 1], c = 3 * indices[3 * triangle + 2];
+    float ax = positions[a], ay = positions[a + 1], az = positions[a + 2];
+    float e1x = positions[b] - ax, e1y = positions[b + 1] - ay, e1z = positions[b + 2] - az;
+    float e2x = positions[c] - ax, e2y = positions[c + 1] - ay, e2z = positions[c + 2] - az;
+    float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+    float det = e1x * px + e1y * py + e1z * pz;
+    if (det == 0) {
+      return false;
+    }
+    float invDet = 1 / det;
+    float sx = ox - ax, sy = oy - ay, sz = oz - az;
+    float u = (sx * px + sy * py + sz * pz) * invDet;
+    if (u < 0 || u > 1) {
+      return false;
+    }
+    float qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+    float v = (dx * qx + dy * qy + dz * qz) * invDet;
+    if (v < 0 || u + v > 1) {
+      return false;
+    }
+    float t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+    if (t < 0 || t > maxDistance) {
+      return false;
+    }
+    hit.set(triangle, t, u, v);
+    return true;
+  }
+
+  /**
+   * Build the tree top-down, the nodes are split along the cheapest bin boundary of the surface area heuristic.
+   * The bounds of the children are the unions of the bin bounds on either side of the split.
+   */
+  private void build() {
+    // Per-triangle data is kept in the order of the triangles array for linear memory access
+    int triangleCount = triangles.length;
+    float[] centroids = new float[3 * triangleCount];
+    float[] triangleBounds = new float[6 * triangleCount];
+    for (int i = 0; i < triangleCount; i++) {
+      resetBounds(triangleBounds, i);
+      growByTriangle(triangleBounds, i, i);
+      for (int axis = 0; axis < 3; axis++) {
+        centroids[3 * i + axis] = (triangleBounds[6 * i + axis] + triangleBounds[6 * i + 3 + axis]) / 2;
+      }
+    }
+
+    int[] binCounts = new int[3 * BINS];
+    float[] binBounds = new float[6 * 3 * BINS];
+    float[] rightAreas = new float[BINS];
+    float[] scratchBounds = new float[6];
+    float[] cMin = new float[3], cMax = new float[3], scale = new float[3];
+
+    nodeCount = 1;
+    firstOrLeft[0] = 0;
+    counts[0] = triangleCount;
+    computeLeafBounds(0);
+    int[] workStack = new int[2 * (MAX_DEPTH + 4)];
+    int workSize = 0;
+    workStack[workSize++] = 0;
+    workStack[workSize++] = 0;
+    while (workSize > 0) {
+      int depth = workStack[--workSize];
+      int node = workStack[--workSize];
+      int start = firstOrLeft[node];
+      int count = counts[node];
+      if (count <= MAX_LEAF_TRIANGLES || depth >= MAX_DEPTH) {
+        continue;
+      }
+
+      // Centroid bounds define the bins
+      Arrays.fill(cMin, Float.POSITIVE_INFINITY);
+      Arrays.fill(cMax, Float.NEGATIVE_INFINITY);
+      for (int i = start; i < start + count; i++) {
+        int c = 3 * i;
+        for (int axis = 0; axis < 3; axis++) {
+          cMin[axis] = Math.min(cMin[axis], centroids[c + axis]);
+          cMax[axis] = Math.max(cMax[axis], centroids[c + axis]);
+        }
+      }
+      for (int axis = 0; axis < 3; axis++) {
+        float extent = cMax[axis] - cMin[axis];
+        scale[axis] = extent > 0 ? BINS / extent : 0;
+      }
+
+      // Bin all triangles along all axes in one pass
+      Arrays.fill(binCounts, 0);
+      for (int bin = 0; bin < 3 * BINS; bin++) {
+        resetBounds(binBounds, bin);
+      }
+      for (int i = start; i < start + count; i++) {
+        for (int axis = 0; axis < 3; axis++) {
+          int bin = axis * BINS + binOf(centroids[3 * i + axis], cMin[axis], scale[axis]);
+          binCounts[bin]++;
+          growByBox(binBounds, bin, triangleBounds, i);
+        }
+      }
+
+      int bestAxis = -1, bestBin = -1;
+      float bestCost = Float.POSITIVE_INFINITY;
+      for (int axis = 0; axis < 3; axis++) {
+        if (scale[axis] == 0) {
+          continue;
+        }
+        // Sweep from the right, then from the left
+        resetBounds(scratchBounds, 0);
+        int rightCount = 0;
+        for (int bin = BINS - 1; bin > 0; bin--) {
+          rightCount += binCounts[axis * BINS + bin];
+          growByBox(scratchBounds, 0, binBounds, axis * BINS + bin);
+          rightAreas[bin] = rightCount > 0 ? area(scratchBounds, 0) : 0;
+        }
+        resetBounds(scratchBounds, 0);
+        int leftCount = 0;
+        rightCount = count;
+        for (int bin = 0; bin < BINS - 1; bin++) {
+          leftCount += binCounts[axis * BINS + bin];
+          rightCount -= binCounts[axis * BINS + bin];
+          growByBox(scratchBounds, 0, binBounds, axis * BINS + bin);
+          if (leftCount == 0 || rightCount == 0) {
+            continue;
+          }
+          float cost = leftCount * area(scratchBounds, 0) + rightCount * rightAreas[bin + 1];
+          if (cost < bestCost) {
+            bestCost = cost;
+            bestAxis = axis;
+            bestBin = bin;
+          }
+        }
+      }
+      if (bestAxis < 0) {
+        // All centroids coincide
+        continue;
+      }
+      float nodeArea = area(bounds, node);
+      if (count <= MAX_SAH_LEAF_TRIANGLES && TRAVERSAL_COST * nodeArea + bestCost >= count * nodeArea) {
+        continue;
+      }
+
+      // Partition the triangle range
+      int i = start, j = start + count - 1;
+      while (i <= j) {
+        if (binOf(centroids[3 * i + bestAxis], cMin[bestAxis], scale[bestAxis]) <= bestBin) {
+          i++;
+        } else {
+          swap(triangles, i, j, 1);
+          swap(centroids, i, j, 3);
+          swap(triangleBounds, i, j, 6);
+          j--;
+        }
+      }
+      int leftCount = i - start;
+
+      int left = nodeCount;
+      int right = left + 1;
+      nodeCount += 2;
+      firstOrLeft[left] = start;
+      counts[left] = leftCount;
+      firstOrLeft[right] = start + leftCount;
+      counts[right] = count - leftCount;
+      resetBounds(bounds, left);
+      resetBounds(bounds, right);
+      for (int bin = 0; bin < BINS; bin++) {
+        growByBox(bounds, bin <= bestBin ? left : right, binBounds, bestAxis * BINS + bin);
+      }
+      firstOrLeft[node] = left;
+      counts[node] = 0;
+      workStack[workSize++] = right;
+      workStack[workSize++] = depth + 1;
+      workStack[workSize++] = left;
+      workStack[workSize++] = depth + 1;
+    }
+  }
+
+  private static void swap(int[] values, int i, int j, int stride) {
+    for (int k = 0; k < stride; k++) {
+      int value = values[stride * i + k];
+      values[stride * i + k] = values[stride * j + k];
+      values[stride * j + k] = value;
+    }
+  }
+
+  private static void swap(float[] values, int i, int j, int stride) {
+    for (int k = 0; k < stride; k++) {
+      float value = values[stride * i + k];
+      values[stride * i + k] = values[stride * j + k];
+      values[stride * j + k] = value;
+    }
+  }
+
+  private static int binOf(float centroid, float min, float scale) {
+    return Math.min(BINS - 1, (int) ((centroid - min) * scale));
+  }
+
+  private void computeLeafBounds(int node) {
+    resetBounds(bounds, node);
+    for (int i = firstOrLeft[node]; i < firstOrLeft[node] + counts[node]; i++) {
+      growByTriangle(bounds, node, triangles[i]);
+    }
+  }
+
+  private static void resetBounds(float[] boxes, int box) {
+    for (int axis = 0; axis < 3; axis++) {
+      boxes[6 * box + axis] = Float.POSITIVE_INFINITY;
+      boxes[6 * box + 3 + axis] = Float.NEGATIVE_INFINITY;
+    }
+  }
+
+  private void growByTriangle(float[] boxes, int box, int triangle) {
+    for (int corner = 0; corner < 3; corner++) {
+      int vertex = 3 * indices[3 * triangle + corner];
+      for (int axis = 0; axis < 3; axis++) {
+        boxes[6 * box + axis] = Math.min(boxes[6 * box + axis], positions[vertex + axis]);
+        boxes[6 * box + 3 + axis] = Math.max(boxes[6 * box + 3 + axis], positions[vertex + axis]);
+      }
+    }
+  }
+
+  private static void growByBox(float[] target, int targetBox, float[] boxes, int box) {
+    for (int axis = 0; axis < 3; axis++) {
+      target[6 * targetBox + axis] = Math.min(target[6 * targetBox + axis], boxes[6 * box + axis]);
+      target[6 * targetBox + 3 + axis] = Math.max(target[6 * targetBox + 3 + axis], boxes[6 * box + 3 + axis]);
+    }
+  }
+
+  private static float area(float[] boxes, int box) {
+    float ex = boxes[6 * box + 3] - boxes[6 * box];
+    float ey = boxes[6 * box + 4] - boxes[6 * box + 1];
+    float ez = boxes[6 * box + 5] - boxes[6 * box + 2];
+    if (!(ex >= 0)) {
+      return 0;
+    }
+    return 2 * (ex * ey + ey * ez + ez * ex);
+  }
+}
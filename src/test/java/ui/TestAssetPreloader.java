@@ -0,0 +1,69 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.AssetNotFoundException;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.scene.Node;
+import com.jme3.texture.Texture;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TestAssetPreloader {
+
+  private static class TextureScene extends Scene3D {
+    private final List<String> textures;
+
+    private TextureScene(String... textures) {
+      this.textures = List.of(textures);
+    }
+
+    @Override
+    public void declareAssets(AssetPreloader assets) {
+      textures.forEach(assets::preloadTexture);
+    }
+
+    @Override
+    public void init(AssetManager assetManager, Node rootNode, AbstractCameraController cameraController) {
+    }
+
+    @Override
+    public void update(float time) {
+    }
+
+    @Override
+    public void render() {
+    }
+
+    @Override
+    public String getTitle() {
+      return "Texture scene";
+    }
+  }
+
+  @Test
+  void declaredAssetsAreLoadedInTheBackgroundAndCloned() throws Exception {
+    AssetPreloader assets = new AssetPreloader();
+    assets.setAssetManager(new DesktopAssetManager(true));
+    TextureScene scene = new TextureScene("textures/sweets.jpg", "textures/missing.jpg");
+
+    // Failed loads do not block the scene initialization
+    assets.preload(scene).get(1, TimeUnit.MINUTES);
+    assertSame(assets, scene.getAssets());
+    Texture first = scene.getAssets().getTexture("textures/sweets.jpg");
+    Texture second = scene.getAssets().getTexture("textures/sweets.jpg");
+    assertNotSame(first, second);
+    assertSame(first.getImage(), second.getImage());
+    assertThrows(AssetNotFoundException.class, () -> assets.getTexture("textures/missing.jpg"));
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestAxisTicks {
+
+  @Test
+  void defaultViewHasIntegerTicks() {
+    AxisTicks ticks = AxisTicks.compute(-3, 3, 600, 60);
+    assertEquals(1.0, ticks.getStep(), 1e-12);
+    assertEquals(5, ticks.getCount());
+    assertEquals("-2", ticks.getLabel(0));
+    assertTrue(ticks.isOrigin(2));
+    assertEquals("2", ticks.getLabel(4));
+  }
+
+  @Test
+  void niceSteps() {
+    assertEquals(1.0, AxisTicks.niceStep(0.6), 1e-12);
+    assertEquals(0.2, AxisTicks.niceStep(0.2), 1e-12);
+    assertEquals(5000.0, AxisTicks.niceStep(2100), 1e-9);
+    assertEquals(10.0, AxisTicks.niceStep(7), 1e-12);
+  }
+
+  @Test
+  void tickCountIsBoundedByPixelSize() {
+    AxisTicks ticks = AxisTicks.compute(-1e6, 1e6, 600, 60);
+    assertTrue(ticks.getCount() <= 11);
+    assertEquals(200000.0, ticks.getStep(), 1e-6);
+    assertEquals("-800000", ticks.getLabel(0));
+  }
+
+  @Test
+  void fractionalLabels() {
+    AxisTicks ticks = AxisTicks.compute(-1, 1, 600, 60);
+    assertEquals(0.2, ticks.getStep(), 1e-12);
+    assertEquals("-0.8", ticks.getLabel(0));
+    assertEquals("0.6", ticks.getLabel(7));
+  }
+}
@@ -0,0 +1,31 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestFrameProfiler {
+
+  @Test
+  void recordsOnlyWhenEnabled() {
+    FrameProfiler profiler = new FrameProfiler();
+    long time = profiler.start();
+    time = profiler.lap(FrameProfiler.Phase.UPDATE, time);
+    profiler.lap(FrameProfiler.Phase.RENDER, time);
+    assertEquals(0, profiler.getHistogram(FrameProfiler.Phase.UPDATE).getCount());
+
+    profiler.setEnabled(true);
+    time = profiler.start();
+    time = profiler.lap(FrameProfiler.Phase.UPDATE, time);
+    profiler.lap(FrameProfiler.Phase.RENDER, time);
+    assertEquals(1, profiler.getHistogram(FrameProfiler.Phase.UPDATE).getCount());
+    assertEquals(1, profiler.getHistogram(FrameProfiler.Phase.RENDER).getCount());
+    assertTrue(profiler.getReport().contains("Render"));
+  }
+}
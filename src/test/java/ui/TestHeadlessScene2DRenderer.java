@@ -0,0 +1,88 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.math.Vector2f;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestHeadlessScene2DRenderer {
+
+  private static final int IMAGE_WIDTH = 64, IMAGE_HEIGHT = 48;
+
+  /**
+   * Fills the left half with its color and draws the x-axis in black.
+   */
+  private static class ColorScene extends Scene2D {
+    private final Color color;
+
+    ColorScene(Color color) {
+      super(IMAGE_WIDTH, IMAGE_HEIGHT);
+      this.color = color;
+    }
+
+    @Override
+    public void paint(Graphics g) {
+      g.setColor(color);
+      g.fillRect(0, 0, IMAGE_WIDTH / 2, IMAGE_HEIGHT);
+      drawLine(g, new Vector2f(-3, 0), new Vector2f(3, 0), Color.BLACK);
+    }
+
+    @Override
+    public String getTitle() {
+      return "Color scene";
+    }
+  }
+
+  @Test
+  void rendersAllScenesInParallel() {
+    Set<Thread> renderThreads = ConcurrentHashMap.newKeySet();
+    List<Supplier<Scene2D>> factories = new ArrayList<>();
+    List<Color> colors = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      Color color = new Color(40 * i, 255 - 40 * i, 100);
+      colors.add(color);
+      factories.add(() -> {
+        renderThreads.add(Thread.currentThread());
+        return new ColorScene(color);
+      });
+    }
+
+    List<BufferedImage> images = new HeadlessScene2DRenderer(IMAGE_WIDTH, IMAGE_HEIGHT, 3).renderAll(factories);
+
+    assertEquals(6, images.size());
+    assertFalse(renderThreads.contains(Thread.currentThread()));
+    assertTrue(renderThreads.size() <= 3);
+    for (int i = 0; i < images.size(); i++) {
+      BufferedImage image = images.get(i);
+      assertEquals(IMAGE_WIDTH, image.getWidth());
+      assertEquals(IMAGE_HEIGHT, image.getHeight());
+      assertEquals(colors.get(i).getRGB(), image.getRGB(2, 2), "image " + i);
+      assertEquals(Color.WHITE.getRGB(), image.getRGB(IMAGE_WIDTH - 3, 2));
+      assertTrue(hasBlackPixel(image, IMAGE_WIDTH * 3 / 4), "x-axis missing in image " + i);
+    }
+  }
+
+  private static boolean hasBlackPixel(BufferedImage image, int x) {
+    for (int y = 0; y < image.getHeight(); y++) {
+      if (image.getRGB(x, y) == Color.BLACK.getRGB()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
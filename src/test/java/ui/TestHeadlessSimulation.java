@@ -0,0 +1,54 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.scene.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestHeadlessSimulation {
+
+  private static class CountingScene extends Scene3D {
+    private int initCount = 0;
+    private final List<Float> updateTimes = new ArrayList<>();
+
+    @Override
+    public void init(AssetManager assetManager, Node rootNode, AbstractCameraController cameraController) {
+      initCount++;
+    }
+
+    @Override
+    public void update(float time) {
+      updateTimes.add(time);
+    }
+
+    @Override
+    public void render() {
+    }
+
+    @Override
+    public String getTitle() {
+      return "Counting scene";
+    }
+  }
+
+  @Test
+  void simulatesTheGivenNumberOfFixedSteps() {
+    CountingScene scene = new CountingScene();
+    assertEquals(10, GenericCGApplication.runHeadless(scene, 10));
+    assertEquals(1, scene.initCount);
+    // The scene is updated in every frame after its initialization
+    assertEquals(9, scene.updateTimes.size());
+    for (float time : scene.updateTimes) {
+      assertEquals(1 / 60f, time, 1e-6f);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestLatencyHistogram {
+
+  @Test
+  void bucketsCoverAllValues() {
+    for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertTrue(LatencyHistogram.bucketLowerBound(index) <= value);
+      assertTrue(value == Long.MAX_VALUE || value < LatencyHistogram.bucketLowerBound(index + 1));
+    }
+  }
+
+  @Test
+  void percentilesHaveBoundedRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(1);
+    long[] values = new long[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1000 + random.nextInt(10_000_000);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    for (double p : new double[]{0.5, 0.9, 0.99}) {
+      long exact = values[(int) Math.ceil(p * values.length) - 1];
+      double error = Math.abs(histogram.getPercentile(p) - exact) / (double) exact;
+      assertTrue(error <= 1.0 / LatencyHistogram.SUB_BUCKETS, "p" + p + ": " + error);
+    }
+    assertEquals(values[values.length - 1], histogram.getMax());
+    assertEquals(values.length, histogram.getCount());
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getPercentile(0.5));
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TestPickingService {
+
+  @Test
+  void picksNearestTriangle() {
+    Node root = new Node("root");
+    Geometry near = new Geometry("near", new Box(1, 1, 1));
+    near.setLocalTranslation(0, 0, 5);
+    Geometry far = new Geometry("far", new Box(1, 1, 1));
+    far.setLocalTranslation(0, 0, -5);
+    far.setLocalScale(2);
+    root.attachChild(near);
+    root.attachChild(far);
+    root.updateGeometricState();
+
+    PickingService picking = new PickingService();
+    Ray ray = new Ray(new Vector3f(0.5f, 0.25f, 20), new Vector3f(0, 0, -1));
+    PickingService.PickResult result = picking.pick(root, ray);
+    assertSame(near, result.getGeometry());
+    assertEquals(14, result.getDistance(), 1e-5);
+    assertEquals(new Vector3f(0.5f, 0.25f, 6), result.getPoint());
+
+    List<PickingService.PickResult> all = picking.pickAll(root, ray);
+    assertEquals(4, all.size());
+    assertSame(far, all.get(3).getGeometry());
+    assertEquals(27, all.get(3).getDistance(), 1e-5);
+
+    assertNull(picking.pick(root, new Ray(new Vector3f(5, 5, 20), new Vector3f(0, 0, -1))));
+  }
+}
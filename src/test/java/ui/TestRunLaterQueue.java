@@ -0,0 +1,69 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestRunLaterQueue {
+
+  @Test
+  void tasksRunInOrderAndCompleteTheirFutures() {
+    RunLaterQueue queue = new RunLaterQueue();
+    queue.setBudget(1, TimeUnit.MINUTES);
+    List<Integer> order = new ArrayList<>();
+    CompletableFuture<Void> first = queue.add(() -> order.add(1));
+    CompletableFuture<Void> failing = queue.add(() -> {
+      throw new IllegalStateException("expected");
+    });
+    CompletableFuture<Void> cancelled = queue.add(() -> order.add(2));
+    queue.add(() -> order.add(3));
+    cancelled.cancel(false);
+
+    assertEquals(4, queue.drain());
+    assertEquals(List.of(1, 3), order);
+    assertTrue(first.isDone() && !first.isCompletedExceptionally());
+    assertTrue(failing.isCompletedExceptionally());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  void remainingTasksAreCarriedToTheNextDrain() {
+    RunLaterQueue queue = new RunLaterQueue();
+    queue.setBudget(1, TimeUnit.MILLISECONDS);
+    int[] counter = new int[1];
+    for (int i = 0; i < 10; i++) {
+      queue.add(() -> {
+        sleep(2);
+        counter[0]++;
+      });
+    }
+    // Every task exceeds the budget: one task per drain
+    assertEquals(1, queue.drain());
+    assertEquals(1, counter[0]);
+    assertFalse(queue.isEmpty());
+    while (!queue.isEmpty()) {
+      queue.drain();
+    }
+    assertEquals(10, counter[0]);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestScaledImageCache {
+  private static final Object BILINEAR = RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+
+  @Test
+  void repeatedLookupsReturnTheCachedImage() {
+    ScaledImageCache cache = new ScaledImageCache(1 << 20);
+    BufferedImage image = new BufferedImage(205, 161, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage scaled = cache.getScaled(image, 75, 59, BILINEAR, null);
+    assertEquals(75, scaled.getWidth());
+    assertEquals(59, scaled.getHeight());
+    assertSame(scaled, cache.getScaled(image, 75, 59, BILINEAR, null));
+    assertNull(cache.getScaled(image, 205, 161, BILINEAR, null));
+
+    cache.invalidate(image);
+    assertEquals(0, cache.getMemoryUsage());
+    assertNotSame(scaled, cache.getScaled(image, 75, 59, BILINEAR, null));
+  }
+
+  @Test
+  void memoryLimitEvictsLeastRecentlyUsed() {
+    ScaledImageCache cache = new ScaledImageCache(2 * 4 * 10 * 10);
+    BufferedImage a = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage b = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage c = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage scaledA = cache.getScaled(a, 10, 10, null, null);
+    cache.getScaled(b, 10, 10, null, null);
+    cache.getScaled(a, 10, 10, null, null);
+    cache.getScaled(c, 10, 10, null, null);
+    assertTrue(cache.getMemoryUsage() <= 2 * 4 * 10 * 10);
+    assertSame(scaledA, cache.getScaled(a, 10, 10, null, null));
+  }
+
+  @Test
+  void copiesOfCollectedImagesArePurged() throws InterruptedException {
+    ScaledImageCache cache = new ScaledImageCache(1 << 20);
+    cache.getScaled(new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB), 10, 10, null, null);
+    List<BufferedImage> live = new ArrayList<>();
+    for (int i = 0; i < 100 && cache.getMemoryUsage() > 4 * 10 * 10 * live.size(); i++) {
+      System.gc();
+      Thread.sleep(10);
+      // Inserting purges the copies of collected images
+      BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+      live.add(image);
+      cache.getScaled(image, 10, 10, null, null);
+    }
+    assertEquals(4 * 10 * 10 * live.size(), cache.getMemoryUsage());
+  }
+
+  @Test
+  void minificationAveragesPixels() {
+    // Checkerboard: a single resampling step would pick either black or white pixels
+    BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < 64; y++) {
+      for (int x = 0; x < 64; x++) {
+        image.setRGB(x, y, (x + y) % 2 == 0 ? 0xffffff : 0);
+      }
+    }
+    BufferedImage scaled = new ScaledImageCache(1 << 20).getScaled(image, 4, 4, BILINEAR, null);
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 4; x++) {
+        int gray = scaled.getRGB(x, y) & 0xff;
+        assertTrue(Math.abs(gray - 128) < 8, "gray value " + gray);
+      }
+    }
+  }
+}
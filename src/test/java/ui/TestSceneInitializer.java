@@ -0,0 +1,172 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.LodControl;
+import com.jme3.system.NullRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestSceneInitializer {
+
+  private static class SteppedScene extends Scene3D {
+    private final List<Integer> steps = new ArrayList<>();
+
+    @Override
+    public Iterator<Runnable> initSteps(AssetManager assetManager, Node rootNode,
+                                        AbstractCameraController cameraController) {
+      List<Runnable> initSteps = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        int step = i;
+        initSteps.add(() -> steps.add(step));
+      }
+      return initSteps.iterator();
+    }
+
+    @Override
+    public void init(AssetManager assetManager, Node rootNode, AbstractCameraController cameraController) {
+    }
+
+    @Override
+    public void update(float time) {
+    }
+
+    @Override
+    public void render() {
+    }
+
+    @Override
+    public String getTitle() {
+      return "Stepped scene";
+    }
+  }
+
+  /**
+   * Dense terrain: a height field with 2 * 300 * 300 triangles.
+   */
+  private static class TerrainScene extends SteppedScene {
+    private static final int SIZE = 300;
+
+    private final Geometry terrain;
+
+    private TerrainScene() {
+      float[] positions = new float[3 * (SIZE + 1) * (SIZE + 1)];
+      for (int z = 0; z <= SIZE; z++) {
+        for (int x = 0; x <= SIZE; x++) {
+          int v = z * (SIZE + 1) + x;
+          positions[3 * v] = x;
+          positions[3 * v + 1] = (float) (10 * Math.sin(x * 0.05) * Math.cos(z * 0.04));
+          positions[3 * v + 2] = z;
+        }
+      }
+      int[] indices = new int[6 * SIZE * SIZE];
+      int i = 0;
+      for (int z = 0; z < SIZE; z++) {
+        for (int x = 0; x < SIZE; x++) {
+          int v = z * (SIZE + 1) + x;
+          int[] quad = {v, v + SIZE + 1, v + 1, v + 1, v + SIZE + 1, v + SIZE + 2};
+          for (int index : quad) {
+            indices[i++] = index;
+          }
+        }
+      }
+      Mesh mesh = new Mesh();
+      mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+      mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+      mesh.updateBound();
+      mesh.updateCounts();
+      terrain = new Geometry("terrain", mesh);
+    }
+
+    @Override
+    public Iterator<Runnable> initSteps(AssetManager assetManager, Node rootNode,
+                                        AbstractCameraController cameraController) {
+      return List.<Runnable>of(() -> rootNode.attachChild(terrain)).iterator();
+    }
+  }
+
+  @Test
+  void initStepsAreSpreadAcrossFrames() {
+    SteppedScene scene = new SteppedScene();
+    CompletableFuture<Void> assets = new CompletableFuture<>();
+    SceneInitializer initializer = new SceneInitializer(scene, assets, false, false);
+    RenderManager renderManager = new RenderManager(new NullRenderer());
+    ViewPort viewPort = new ViewPort("test", new Camera(8, 8));
+
+    // Waits for the assets
+    assertFalse(initializer.advance(null, null, renderManager, viewPort, 0));
+    assertTrue(scene.steps.isEmpty());
+
+    // Without budget, one step per frame
+    assets.complete(null);
+    for (int frame = 1; frame <= 3; frame++) {
+      assertFalse(initializer.advance(null, null, renderManager, viewPort, 0));
+      assertEquals(frame, scene.steps.size());
+    }
+    assertTrue(initializer.advance(null, null, renderManager, viewPort, 0));
+    assertEquals(List.of(0, 1, 2), scene.steps);
+    assertEquals(2, initializer.getSceneRoot().getLocalLightList().size());
+    assertNull(initializer.getSceneRoot().getParent());
+  }
+
+  @Test
+  void levelsOfDetailAreComputedInTheBackground() throws InterruptedException {
+    TerrainScene scene = new TerrainScene();
+    SceneInitializer initializer = new SceneInitializer(scene, CompletableFuture.completedFuture(null), true, false);
+    RenderManager renderManager = new RenderManager(new NullRenderer());
+    ViewPort viewPort = new ViewPort("test", new Camera(8, 8));
+
+    // Init step, then start of the level computation
+    assertFalse(initializer.advance(null, null, renderManager, viewPort, 0));
+    assertFalse(initializer.advance(null, null, renderManager, viewPort, 0));
+    // Frames go on while the levels are computed
+    int framesWhileComputing = 0;
+    while (scene.terrain.getControl(LodControl.class) == null) {
+      assertFalse(initializer.advance(null, null, renderManager, viewPort, 0));
+      framesWhileComputing++;
+      assertTrue(framesWhileComputing < 60_000, "levels of detail not computed");
+      Thread.sleep(1);
+    }
+    assertTrue(framesWhileComputing > 1);
+    Mesh mesh = scene.terrain.getMesh();
+    assertTrue(mesh.getNumLodLevels() > 2);
+    assertEquals(2 * TerrainScene.SIZE * TerrainScene.SIZE, mesh.getLodLevel(0).getNumElements());
+    for (int level = 1; level < mesh.getNumLodLevels(); level++) {
+      assertTrue(mesh.getLodLevel(level).getNumElements() < mesh.getLodLevel(level - 1).getNumElements());
+    }
+  }
+
+  @Test
+  void unlimitedBudgetCompletesInOneCall() {
+    SteppedScene scene = new SteppedScene();
+    CompletableFuture<Void> assets = CompletableFuture.runAsync(() -> {
+    }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+    SceneInitializer initializer = new SceneInitializer(scene, assets, false, false);
+    RenderManager renderManager = new RenderManager(new NullRenderer());
+    ViewPort viewPort = new ViewPort("test", new Camera(8, 8));
+
+    assertTrue(initializer.advance(null, null, renderManager, viewPort, SceneInitializer.UNLIMITED_BUDGET));
+    assertEquals(List.of(0, 1, 2), scene.steps);
+  }
+}
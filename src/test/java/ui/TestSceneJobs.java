@@ -0,0 +1,76 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestSceneJobs {
+
+  @Test
+  void latestJobWins() throws Exception {
+    RunLaterQueue renderThread = new RunLaterQueue();
+    SceneJobs jobs = new SceneJobs(renderThread);
+    List<Integer> results = new ArrayList<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+
+    CompletableFuture<Integer> first = jobs.submit("terrain", () -> {
+      started.countDown();
+      while (!Thread.currentThread().isInterrupted()) {
+        Thread.onSpinWait();
+      }
+      interrupted.countDown();
+      return 1;
+    }, results::add);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<Integer> second = jobs.submit("terrain", () -> 2, results::add);
+
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    assertTrue(first.isCancelled());
+    deliver(renderThread, second);
+    assertEquals(List.of(2), results);
+    assertEquals(Integer.valueOf(2), second.get());
+    assertEquals(0, jobs.getPendingCount());
+  }
+
+  @Test
+  void cancelledResultsAreNotDelivered() throws Exception {
+    RunLaterQueue renderThread = new RunLaterQueue();
+    SceneJobs jobs = new SceneJobs(renderThread);
+    List<String> results = new ArrayList<>();
+    CountDownLatch computed = new CountDownLatch(1);
+    jobs.submit("mesh", () -> {
+      computed.countDown();
+      return "mesh";
+    }, results::add);
+    assertTrue(computed.await(5, TimeUnit.SECONDS));
+    // Wait until the result is handed to the render thread, then replace the scene
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (renderThread.isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    jobs.cancelAll();
+    renderThread.drain();
+    assertTrue(results.isEmpty());
+  }
+
+  private static void deliver(RunLaterQueue renderThread, CompletableFuture<?> job) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!job.isDone() && System.nanoTime() < deadline) {
+      renderThread.drain();
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestSplinePath {
+
+  private static final float TOLERANCE = 0.25f;
+
+  /**
+   * Two segments, an S-curve and a loop-like arc.
+   */
+  private static final float[] CONTROL_POINTS = {-2, 0, -1, 3, 1, -3, 2, 0, 3, 3, 0, 4, 0.5f, 1};
+
+  @Test
+  void flattenedPathIsWithinTolerance() {
+    SplinePath spline = new SplinePath(CONTROL_POINTS);
+    float scale = 100, offsetX = 300, offsetY = 300;
+    List<float[]> polyline = getVertices(spline.getFlattenedPath(scale, offsetX, offsetY, 600, 600, TOLERANCE));
+    assertTrue(polyline.size() > 2 * spline.getNumberOfSegments());
+
+    for (int segment = 0; segment < spline.getNumberOfSegments(); segment++) {
+      for (int i = 0; i <= 1000; i++) {
+        double t = i / 1000.0;
+        double x = evaluate(segment, t, 0) * scale + offsetX;
+        double y = offsetY - evaluate(segment, t, 1) * scale;
+        assertTrue(distance(polyline, x, y) <= TOLERANCE + 1e-3, "curve point too far from the path at t = " + t);
+      }
+    }
+  }
+
+  @Test
+  void cacheIsInvalidatedByVersionAndTransform() {
+    SplinePath spline = new SplinePath(CONTROL_POINTS);
+    Path2D path = spline.getFlattenedPath(100, 300, 300, 600, 600, TOLERANCE);
+    // Unchanged state: the cached path is returned as it is
+    path.reset();
+    assertTrue(getVertices(spline.getFlattenedPath(100, 300, 300, 600, 600, TOLERANCE)).isEmpty());
+
+    // Changed control point
+    spline.setControlPoint(1, -1, 2);
+    List<float[]> vertices = getVertices(spline.getFlattenedPath(100, 300, 300, 600, 600, TOLERANCE));
+    assertTrue(vertices.size() > 0);
+    path.reset();
+    assertTrue(getVertices(spline.getFlattenedPath(100, 300, 300, 600, 600, TOLERANCE)).isEmpty());
+
+    // Changed transform
+    vertices = getVertices(spline.getFlattenedPath(50, 300, 300, 600, 600, TOLERANCE));
+    assertEquals(-2 * 50 + 300, vertices.get(0)[0], 1e-3);
+    assertEquals(300, vertices.get(0)[1], 1e-3);
+    vertices = getVertices(spline.getFlattenedPath(50, 310, 300, 600, 600, TOLERANCE));
+    assertEquals(-2 * 50 + 310, vertices.get(0)[0], 1e-3);
+    assertTrue(vertices.size() > 2);
+  }
+
+  /**
+   * Coordinate (0: x, 1: y) of the cubic segment in world coordinates at t.
+   */
+  private static double evaluate(int segment, double t, int coordinate) {
+    double s = 1 - t;
+    double[] weights = {s * s * s, 3 * s * s * t, 3 * s * t * t, t * t * t};
+    double value = 0;
+    for (int i = 0; i < 4; i++) {
+      value += weights[i] * CONTROL_POINTS[2 * (3 * segment + i) + coordinate];
+    }
+    return value;
+  }
+
+  private static List<float[]> getVertices(Path2D path) {
+    List<float[]> vertices = new ArrayList<>();
+    float[] coords = new float[6];
+    for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+      it.currentSegment(coords);
+      vertices.add(new float[]{coords[0], coords[1]});
+    }
+    return vertices;
+  }
+
+  private static double distance(List<float[]> polyline, double x, double y) {
+    double distance = Double.POSITIVE_INFINITY;
+    for (int i = 0; i + 1 < polyline.size(); i++) {
+      float[] a = polyline.get(i), b = polyline.get(i + 1);
+      distance = Math.min(distance, Line2D.ptSegDist(a[0], a[1], b[0], b[1], x, y));
+    }
+    return distance;
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestViewportClipper {
+
+  private static ViewportClipper createClipper() {
+    ViewportClipper clipper = new ViewportClipper();
+    clipper.setViewport(0, 0, 100, 100);
+    return clipper;
+  }
+
+  @Test
+  void keepsSegmentInside() {
+    float[] segment = {10, 20, 90, 80};
+    assertTrue(createClipper().clipSegment(segment));
+    assertSegment(segment, 10, 20, 90, 80);
+  }
+
+  @Test
+  void rejectsSegmentOutside() {
+    ViewportClipper clipper = createClipper();
+    assertFalse(clipper.clipSegment(new float[]{150, 10, 200, 50}));
+    assertFalse(clipper.clipSegment(new float[]{-10, -5, 120, -1}));
+    // Passes the corner (0, 0) outside the viewport
+    assertFalse(clipper.clipSegment(new float[]{-10, 5, 5, -10}));
+  }
+
+  @Test
+  void clipsSegmentCrossingCorner() {
+    float[] segment = {-10, 50, 50, -10};
+    assertTrue(createClipper().clipSegment(segment));
+    assertSegment(segment, 0, 40, 40, 0);
+
+    segment = new float[]{50, 50, 150, 150};
+    assertTrue(createClipper().clipSegment(segment));
+    assertSegment(segment, 50, 50, 100, 100);
+  }
+
+  @Test
+  void clipsPolygonStraddlingTwoEdges() {
+    ViewportClipper clipper = createClipper();
+    float[] square = {50, 50, 150, 50, 150, 150, 50, 150};
+    assertEquals(4, clipper.clipPolygon(square, 4));
+    float[] clipped = clipper.getPolygon();
+    for (int i = 0; i < 4; i++) {
+      assertTrue(clipper.contains(clipped[2 * i], clipped[2 * i + 1]));
+    }
+    assertEquals(2500, area(clipped, 4), 1e-3);
+
+    // Triangle over the corner (100, 100) becomes a trapezoid between y = 90 and y = 100
+    float[] triangle = {60, 90, 130, 90, 90, 130};
+    assertEquals(4, clipper.clipPolygon(triangle, 3));
+    assertEquals(10 * (40 + 32.5) / 2, area(clipper.getPolygon(), 4), 1e-3);
+  }
+
+  @Test
+  void decimatesDensePolyline() {
+    ViewportClipper clipper = createClipper();
+    List<Integer> runSizes = new ArrayList<>();
+    clipper.beginPolyline((x, y, n) -> {
+      for (int i = 0; i < n; i++) {
+        assertTrue(clipper.contains(x[i], y[i]));
+      }
+      runSizes.add(n);
+    });
+    int count = 10000;
+    for (int i = 0; i < count; i++) {
+      float x = i * 0.01f;
+      clipper.polylineTo(x, (float) (50 + 40 * Math.sin(x)));
+    }
+    clipper.endPolyline();
+
+    assertEquals(1, runSizes.size());
+    // At most the entry, minimum, maximum and exit vertex per pixel column
+    assertTrue(runSizes.get(0) <= 4 * 100);
+    assertTrue(runSizes.get(0) >= 100);
+  }
+
+  @Test
+  void splitsPolylineLeavingViewport() {
+    ViewportClipper clipper = createClipper();
+    List<Integer> runSizes = new ArrayList<>();
+    clipper.beginPolyline((x, y, n) -> runSizes.add(n));
+    clipper.polylineTo(10, 10);
+    clipper.polylineTo(50, 10);
+    clipper.polylineTo(50, 200);
+    clipper.polylineTo(90, 200);
+    clipper.polylineTo(90, 50);
+    clipper.endPolyline();
+    assertEquals(2, runSizes.size());
+  }
+
+  private static void assertSegment(float[] segment, float x0, float y0, float x1, float y1) {
+    assertEquals(x0, segment[0], 1e-4);
+    assertEquals(y0, segment[1], 1e-4);
+    assertEquals(x1, segment[2], 1e-4);
+    assertEquals(y1, segment[3], 1e-4);
+  }
+
+  private static double area(float[] xy, int n) {
+    double area = 0;
+    for (int i = 0; i < n; i++) {
+      int j = (i + 1) % n;
+      area += xy[2 * i] * xy[2 * j + 1] - xy[2 * j] * xy[2 * i + 1];
+    }
+    return Math.abs(area) / 2;
+  }
+}
@@ -0,0 +1,120 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import org.junit.jupiter.api.Test;
+import ui.PickingService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TestDynamicMesh {
+
+  @Test
+  void updatesInPlace() {
+    DynamicMesh mesh = new DynamicMesh("dynamic", 100, 300, false);
+    mesh.setVertexCount(3);
+    mesh.setIndexCount(3);
+    mesh.setPosition(0, 0, 0, 0);
+    mesh.setPosition(1, 1, 0, 0);
+    mesh.setPosition(2, 0, 2, 0);
+    mesh.setTriangle(0, 0, 1, 2);
+    mesh.update();
+
+    assertEquals(3, mesh.getMesh().getVertexCount());
+    assertEquals(1, mesh.getMesh().getTriangleCount());
+    assertSame(mesh.getPositions(), mesh.getMesh().getBuffer(VertexBuffer.Type.Position).getData());
+    assertBound(mesh.getBound(), new Vector3f(0, 0, 0), new Vector3f(1, 2, 0));
+
+    // Moving a single vertex outwards extends the box
+    mesh.setPosition(1, 3, 0, -1);
+    mesh.update();
+    assertBound(mesh.getBound(), new Vector3f(0, 0, -1), new Vector3f(3, 2, 0));
+    assertSame(mesh.getPositions(), mesh.getMesh().getBuffer(VertexBuffer.Type.Position).getData());
+  }
+
+  @Test
+  void removingVerticesShrinksTheBound() {
+    DynamicMesh mesh = new DynamicMesh("dynamic", 10, 30, true);
+    mesh.setVertexCount(3);
+    mesh.setPosition(0, 0, 0, 0);
+    mesh.setPosition(1, 1, 1, 1);
+    mesh.setPosition(2, 5, 5, 5);
+    mesh.update();
+    assertBound(mesh.getBound(), new Vector3f(0, 0, 0), new Vector3f(5, 5, 5));
+
+    mesh.setVertexCount(2);
+    mesh.update();
+    assertEquals(2, mesh.getMesh().getVertexCount());
+    assertBound(mesh.getBound(), new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+  }
+
+  @Test
+  void partialUpdatesEventuallyShrinkTheBound() {
+    DynamicMesh mesh = new DynamicMesh("dynamic", 100, 300, false);
+    mesh.setVertexCount(100);
+    for (int i = 0; i < 100; i++) {
+      mesh.setPosition(i, i / 100f, 0, 0);
+    }
+    mesh.update();
+    mesh.setPosition(0, -10, 0, 0);
+    mesh.update();
+    assertBound(mesh.getBound(), new Vector3f(-10, 0, 0), new Vector3f(0.99f, 0, 0));
+
+    // Move the vertex back and animate single vertices
+    mesh.setPosition(0, 0, 0, 0);
+    mesh.update();
+    for (int i = 1; i < 100; i++) {
+      mesh.setPosition(i, i / 100f, 0, 0);
+      mesh.update();
+    }
+    assertBound(mesh.getBound(), new Vector3f(0, 0, 0), new Vector3f(0.99f, 0, 0));
+  }
+
+  @Test
+  void keepsTheSharedPickingHierarchyUpToDate() {
+    DynamicMesh mesh = new DynamicMesh("dynamic", 10, 30, false);
+    mesh.setVertexCount(3);
+    mesh.setIndexCount(3);
+    mesh.setPosition(0, 0, 0, 0);
+    mesh.setPosition(1, 1, 0, 0);
+    mesh.setPosition(2, 0, 1, 0);
+    mesh.setTriangle(0, 0, 1, 2);
+    mesh.update();
+    Node root = new Node("root");
+    root.attachChild(mesh.getGeometry());
+    root.updateGeometricState();
+    PickingService picking = PickingService.getInstance();
+    Ray ray = new Ray(new Vector3f(0.25f, 0.25f, 10), new Vector3f(0, 0, -1));
+    assertEquals(10, picking.pick(root, ray).getDistance(), 1e-5);
+
+    // Moved vertices: refitted
+    for (int i = 0; i < 3; i++) {
+      mesh.getPositions().put(3 * i + 2, 5);
+    }
+    mesh.markPositionsChanged(0, 3);
+    mesh.update();
+    root.updateGeometricState();
+    assertEquals(5, picking.pick(root, ray).getDistance(), 1e-5);
+
+    // Removed triangle: rebuilt
+    mesh.setIndexCount(0);
+    mesh.update();
+    root.updateGeometricState();
+    assertNull(picking.pick(root, ray));
+  }
+
+  private static void assertBound(BoundingBox bound, Vector3f min, Vector3f max) {
+    assertEquals(min, bound.getMin(null));
+    assertEquals(max, bound.getMax(null));
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.instancing.InstancedGeometry;
+import com.jme3.scene.shape.Box;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestInstanceSet {
+
+  @Test
+  void instancesShareMeshAndMaterial() {
+    AssetManager assetManager = new DesktopAssetManager(true);
+    Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+    Box box = new Box(0.5f, 0.5f, 0.5f);
+    InstanceSet instances = new InstanceSet("boxes", box, material);
+
+    int count = 1000;
+    float[] transforms = new float[count * InstanceSet.FLOATS_PER_TRANSFORM];
+    for (int i = 0; i < count; i++) {
+      int offset = i * InstanceSet.FLOATS_PER_TRANSFORM;
+      transforms[offset] = i;
+      transforms[offset + 6] = 1;
+      transforms[offset + 7] = transforms[offset + 8] = transforms[offset + 9] = 1;
+    }
+    instances.addAll(transforms);
+    instances.instance();
+
+    assertEquals(count, instances.size());
+    int instancedGeometries = 0;
+    int instanceCount = 0;
+    for (Spatial child : instances.getNode().getChildren()) {
+      if (child instanceof InstancedGeometry) {
+        instancedGeometries++;
+        instanceCount += ((InstancedGeometry) child).getActualNumInstances();
+      } else if (child instanceof Geometry) {
+        assertSame(box, ((Geometry) child).getMesh());
+        assertSame(material, ((Geometry) child).getMaterial());
+      }
+    }
+    assertEquals(1, instancedGeometries);
+    assertEquals(count, instanceCount);
+  }
+
+  @Test
+  void transformUpdates() {
+    AssetManager assetManager = new DesktopAssetManager(true);
+    Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+    InstanceSet instances = new InstanceSet("boxes", new Box(1, 1, 1), material);
+    InstanceSet.Handle handle = instances.add();
+    instances.instance();
+    Node root = new Node("root");
+    root.attachChild(instances.getNode());
+
+    handle.setTranslation(1, 2, 3);
+    root.updateGeometricState();
+    assertEquals(new Vector3f(1, 2, 3), handle.getGeometry().getWorldTranslation());
+
+    instances.remove(handle);
+    assertEquals(0, instances.size());
+    assertTrue(handle.getGeometry().getParent() == null);
+  }
+}
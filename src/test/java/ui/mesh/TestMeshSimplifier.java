@@ -0,0 +1,115 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class TestMeshSimplifier {
+
+  private static final int N = 50;
+
+  /**
+   * Positions of an (N+1)x(N+1) height field over the unit square.
+   */
+  static float[] createGrid(boolean bumpy) {
+    float[] positions = new float[3 * (N + 1) * (N + 1)];
+    for (int y = 0; y <= N; y++) {
+      for (int x = 0; x <= N; x++) {
+        int v = y * (N + 1) + x;
+        positions[3 * v] = x / (float) N;
+        positions[3 * v + 1] = y / (float) N;
+        positions[3 * v + 2] = bumpy ? (float) (0.1 * Math.sin(6.0 * x / N) * Math.cos(5.0 * y / N)) : 0;
+      }
+    }
+    return positions;
+  }
+
+  static int[] createGridIndices() {
+    int[] indices = new int[6 * N * N];
+    int i = 0;
+    for (int y = 0; y < N; y++) {
+      for (int x = 0; x < N; x++) {
+        int v = y * (N + 1) + x;
+        int[] quad = {v, v + 1, v + N + 1, v + 1, v + N + 2, v + N + 1};
+        for (int index : quad) {
+          indices[i++] = index;
+        }
+      }
+    }
+    return indices;
+  }
+
+  @Test
+  void reducesFlatGridWithoutError() {
+    MeshSimplifier simplifier = new MeshSimplifier(createGrid(false), createGridIndices());
+    int[] reduced = simplifier.simplify(0, 1e-4f);
+    assertEquals(2, reduced.length / 3);
+    assertEquals(0, simplifier.getError(), 1e-6);
+  }
+
+  @Test
+  void meetsTriangleBudget() {
+    float[] positions = createGrid(true);
+    MeshSimplifier simplifier = new MeshSimplifier(positions, createGridIndices());
+    int[] reduced = simplifier.simplify(500, 1);
+    assertTrue(reduced.length / 3 <= 500);
+    assertTrue(reduced.length / 3 > 400);
+    assertEquals(reduced.length / 3, simplifier.getTriangleCount());
+    assertTrue(maxDeviation(positions, reduced) <= simplifier.getError());
+  }
+
+  @Test
+  void respectsErrorBound() {
+    float[] positions = createGrid(true);
+    MeshSimplifier simplifier = new MeshSimplifier(positions, createGridIndices());
+    float maxError = 0.01f;
+    int[] reduced = simplifier.simplify(0, maxError);
+    assertTrue(reduced.length / 3 < 2 * N * N / 4);
+    assertTrue(simplifier.getError() <= maxError);
+    assertTrue(maxDeviation(positions, reduced) <= maxError);
+
+    // Simplification continues from the previous level
+    int[] coarser = simplifier.simplify(0, 2 * maxError);
+    assertTrue(coarser.length < reduced.length);
+  }
+
+  /**
+   * Maximum vertical distance of the grid vertices to the reduced height field.
+   */
+  private static double maxDeviation(float[] positions, int[] indices) {
+    double maxDeviation = 0;
+    for (int v = 0; v < positions.length / 3; v++) {
+      double px = positions[3 * v], py = positions[3 * v + 1];
+      double deviation = Double.NaN;
+      for (int t = 0; t < indices.length / 3 && Double.isNaN(deviation); t++) {
+        int a = 3 * indices[3 * t], b = 3 * indices[3 * t + 1], c = 3 * indices[3 * t + 2];
+        double det = (positions[b + 1] - positions[c + 1]) * (positions[a] - positions[c])
+                + (positions[c] - positions[b]) * (positions[a + 1] - positions[c + 1]);
+        if (Math.abs(det) < 1e-15) {
+          continue;
+        }
+        double la = ((positions[b + 1] - positions[c + 1]) * (px - positions[c])
+                + (positions[c] - positions[b]) * (py - positions[c + 1])) / det;
+        double lb = ((positions[c + 1] - positions[a + 1]) * (px - positions[c])
+                + (positions[a] - positions[c]) * (py - positions[c + 1])) / det;
+        double lc = 1 - la - lb;
+        if (la >= -1e-6 && lb >= -1e-6 && lc >= -1e-6) {
+          double z = la * positions[a + 2] + lb * positions[b + 2] + lc * positions[c + 2];
+          deviation = Math.abs(z - positions[3 * v + 2]);
+        }
+      }
+      if (Double.isNaN(deviation)) {
+        fail("vertex " + v + " is not covered by the reduced mesh");
+      }
+      maxDeviation = Math.max(maxDeviation, deviation);
+    }
+    return maxDeviation;
+  }
+}
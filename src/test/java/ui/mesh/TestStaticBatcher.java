@@ -0,0 +1,114 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.mesh;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.RenderManager;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Line;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TestStaticBatcher {
+
+  @Test
+  void mergesStaticGeometriesOnly() {
+    Material material = new Material(new DesktopAssetManager(true), "Common/MatDefs/Misc/Unshaded.j3md");
+    Node root = new Node("root");
+    Node group = new Node("group");
+    root.attachChild(group);
+    for (int i = 0; i < 100; i++) {
+      Geometry box = new Geometry("box" + i, new Box(0.5f, 0.5f, 0.5f));
+      box.setMaterial(material);
+      box.setLocalTranslation(i, 0, 0);
+      group.attachChild(box);
+    }
+    Geometry dynamic = new Geometry("dynamic", new Box(1, 1, 1));
+    dynamic.setMaterial(material);
+    StaticBatcher.markDynamic(dynamic);
+    root.attachChild(dynamic);
+    Geometry animated = new Geometry("animated", new Box(1, 1, 1));
+    animated.setMaterial(material);
+    animated.addControl(new AbstractControl() {
+      @Override
+      protected void controlUpdate(float tpf) {
+      }
+
+      @Override
+      protected void controlRender(RenderManager rm, ViewPort vp) {
+      }
+    });
+    root.attachChild(animated);
+
+    assertEquals(3, StaticBatcher.batch(root));
+    assertSame(root, dynamic.getParent());
+    assertSame(root, animated.getParent());
+    assertEquals(0, group.getQuantity());
+  }
+
+  @Test
+  void mergesGeometriesWithEqualMaterials() {
+    DesktopAssetManager assetManager = new DesktopAssetManager(true);
+    Node root = new Node("root");
+    for (int i = 0; i < 50; i++) {
+      // A new material per geometry, as created by typical scene code
+      Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+      material.setColor("Color", i < 25 ? ColorRGBA.Red : ColorRGBA.Blue);
+      Geometry box = new Geometry("box" + i, new Box(0.5f, 0.5f, 0.5f));
+      box.setMaterial(material);
+      box.setLocalTranslation(i, 0, 0);
+      root.attachChild(box);
+    }
+
+    // One batch per color
+    assertEquals(2, StaticBatcher.batch(root));
+  }
+
+  @Test
+  void separatesPrimitiveModesAndSkipsCulledGeometries() {
+    Material material = new Material(new DesktopAssetManager(true), "Common/MatDefs/Misc/Unshaded.j3md");
+    Node root = new Node("root");
+    for (int i = 0; i < 3; i++) {
+      Geometry box = new Geometry("box" + i, new Box(0.5f, 0.5f, 0.5f));
+      box.setMaterial(material);
+      box.setLocalTranslation(i, 0, 0);
+      root.attachChild(box);
+      Geometry line = new Geometry("line" + i, new Line(new Vector3f(i, 0, 0), new Vector3f(i, 1, 0)));
+      line.setMaterial(material);
+      root.attachChild(line);
+    }
+    Geometry hidden = new Geometry("hidden", new Box(0.5f, 0.5f, 0.5f));
+    hidden.setMaterial(material);
+    hidden.setCullHint(Spatial.CullHint.Always);
+    root.attachChild(hidden);
+
+    // One batch of boxes, one batch of lines and the hidden box
+    assertEquals(3, StaticBatcher.batch(root));
+    assertSame(root, hidden.getParent());
+    Set<Mesh.Mode> modes = new HashSet<>();
+    root.depthFirstTraversal(spatial -> {
+      if (spatial instanceof Geometry && spatial != hidden) {
+        modes.add(((Geometry) spatial).getMesh().getMode());
+      }
+    });
+    assertEquals(new HashSet<>(Arrays.asList(Mesh.Mode.Triangles, Mesh.Mode.Lines)), modes);
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.raster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestTileRasterizer {
+  private static final int WHITE = 0xffffffff;
+  private static final int RED = 0xffff0000;
+
+  @Test
+  void lineCoversEndPoints() {
+    TileRasterizer rasterizer = new TileRasterizer(100, 100, 16);
+    rasterizer.clear(WHITE);
+    rasterizer.drawLine(3, 5, 90, 40, RED);
+    rasterizer.flush();
+
+    int[] pixels = rasterizer.getPixels();
+    assertEquals(RED, pixels[5 * 100 + 3]);
+    assertEquals(RED, pixels[40 * 100 + 90]);
+    // x-major line: exactly one pixel per column
+    assertEquals(88, count(pixels, RED));
+  }
+
+  @Test
+  void polygonArea() {
+    TileRasterizer rasterizer = new TileRasterizer(64, 64, 8);
+    rasterizer.clear(WHITE);
+    rasterizer.fillPolygon(new int[]{10, 30, 30, 10}, new int[]{10, 10, 20, 20}, 4, RED);
+    rasterizer.flush();
+
+    assertEquals(200, count(rasterizer.getPixels(), RED));
+  }
+
+  @Test
+  void outsideIsIgnored() {
+    TileRasterizer rasterizer = new TileRasterizer(32, 32);
+    rasterizer.clear(WHITE);
+    rasterizer.drawLine(-100, -100, -10, -50, RED);
+    rasterizer.fillCircle(500, 500, 10, RED);
+    rasterizer.drawPoint(40, 5, 4, RED);
+    rasterizer.flush();
+
+    assertEquals(0, count(rasterizer.getPixels(), RED));
+  }
+
+  @Test
+  void independentOfTileSize() {
+    TileRasterizer tiled = new TileRasterizer(200, 150, 7);
+    TileRasterizer single = new TileRasterizer(200, 150, 256);
+    Random random = new Random(1);
+    tiled.clear(WHITE);
+    single.clear(WHITE);
+    for (int i = 0; i < 500; i++) {
+      int color = random.nextInt() | 0x80000000;
+      int x0 = random.nextInt(260) - 30, y0 = random.nextInt(210) - 30;
+      int x1 = random.nextInt(260) - 30, y1 = random.nextInt(210) - 30;
+      int r = random.nextInt(30);
+      switch (i % 5) {
+        case 0 -> {
+          tiled.drawLine(x0, y0, x1, y1, color);
+          single.drawLine(x0, y0, x1, y1, color);
+        }
+        case 1 -> {
+          int[] x = {x0, x1, x0 + r};
+          int[] y = {y0, y1, y1 - r};
+          tiled.fillPolygon(x, y, 3, color);
+          single.fillPolygon(x, y, 3, color);
+        }
+        case 2 -> {
+          tiled.drawCircle(x0, y0, r, color);
+          single.drawCircle(x0, y0, r, color);
+        }
+        case 3 -> {
+          tiled.fillCircle(x0, y0, r, color);
+          single.fillCircle(x0, y0, r, color);
+        }
+        default -> {
+          tiled.drawPoint(x0, y0, 5, color);
+          single.drawPoint(x0, y0, 5, color);
+        }
+      }
+    }
+    tiled.flush();
+    single.flush();
+
+    int[] a = tiled.getPixels();
+    int[] b = single.getPixels();
+    for (int i = 0; i < a.length; i++) {
+      assertEquals(b[i], a[i], "pixel " + i);
+    }
+    assertTrue(count(a, WHITE) < a.length);
+  }
+
+  private static int count(int[] pixels, int color) {
+    int count = 0;
+    for (int pixel : pixels) {
+      if (pixel == color) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
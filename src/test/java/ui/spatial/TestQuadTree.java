@@ -0,0 +1,96 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.spatial;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestQuadTree {
+  QuadTree<Integer> tree;
+
+  @BeforeEach
+  void beforeEach() {
+    tree = new QuadTree<>();
+  }
+
+  @Test
+  void empty() {
+    assertEquals(0, tree.size());
+    assertTrue(tree.query(-1, -1, 1, 1).isEmpty());
+    assertNull(tree.nearest(0, 0, 10));
+  }
+
+  @Test
+  void queryMatchesBruteForce() {
+    Random random = new Random(42);
+    float[][] bounds = new float[1000][];
+    for (int i = 0; i < bounds.length; i++) {
+      float x = random.nextFloat() * 200 - 100;
+      float y = random.nextFloat() * 200 - 100;
+      float size = random.nextFloat() * 5;
+      bounds[i] = new float[]{x, y, x + size, y + size};
+      tree.insert(i, x, y, x + size, y + size);
+    }
+    assertEquals(bounds.length, tree.size());
+
+    for (int q = 0; q < 50; q++) {
+      float minX = random.nextFloat() * 200 - 100;
+      float minY = random.nextFloat() * 200 - 100;
+      float maxX = minX + random.nextFloat() * 40;
+      float maxY = minY + random.nextFloat() * 40;
+      Set<Integer> expected = new HashSet<>();
+      for (int i = 0; i < bounds.length; i++) {
+        if (bounds[i][2] >= minX && bounds[i][0] <= maxX && bounds[i][3] >= minY && bounds[i][1] <= maxY) {
+          expected.add(i);
+        }
+      }
+      List<Integer> result = tree.query(minX, minY, maxX, maxY);
+      assertEquals(expected.size(), result.size());
+      assertEquals(expected, new HashSet<>(result));
+    }
+  }
+
+  @Test
+  void nearest() {
+    tree.insert(0, 0, 0);
+    tree.insert(1, 1, 0);
+    tree.insert(2, 10, 10, 12, 12);
+
+    assertEquals(Integer.valueOf(0), tree.nearest(0.2f, 0, 0.5f));
+    assertEquals(Integer.valueOf(1), tree.nearest(0.8f, 0, 0.5f));
+    assertEquals(Integer.valueOf(2), tree.nearest(11, 11, 0.1f));
+    assertNull(tree.nearest(5, 5, 0.5f));
+  }
+
+  @Test
+  void updateAndRemove() {
+    for (int i = 0; i < 100; i++) {
+      tree.insert(i, i, i);
+    }
+    tree.update(5, 0.01f, 0.01f);
+    tree.update(7, 1000, -1000);
+
+    assertEquals(100, tree.size());
+    assertEquals(Set.of(0, 5), new HashSet<>(tree.query(-0.5f, -0.5f, 0.5f, 0.5f)));
+    assertEquals(List.of(7), tree.query(999, -1001, 1001, -999));
+    assertTrue(tree.query(6.5f, 6.5f, 7.5f, 7.5f).isEmpty());
+
+    assertTrue(tree.remove(5));
+    assertFalse(tree.remove(5));
+    assertEquals(99, tree.size());
+    assertEquals(List.of(0), tree.query(-0.5f, -0.5f, 0.5f, 0.5f));
+  }
+}
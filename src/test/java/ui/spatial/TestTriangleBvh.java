@@ -0,0 +1,97 @@
+/**
+ * This file is part of the computer graphics project of the computer graphics group led by
+ * Prof. Dr. Philipp Jenke at the University of Applied Sciences (HAW) in Hamburg.
+ */
+
+package ui.spatial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestTriangleBvh {
+
+  @Test
+  void barycentrics() {
+    float[] positions = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+    TriangleBvh bvh = new TriangleBvh(positions, new int[]{0, 1, 2});
+    TriangleBvh.Hit hit = new TriangleBvh.Hit();
+    assertTrue(bvh.intersectNearest(0.25f, 0.5f, 2, 0, 0, -1, Float.POSITIVE_INFINITY, hit));
+    assertEquals(0, hit.getTriangle());
+    assertEquals(2, hit.getDistance(), 1e-6);
+    assertEquals(0.25f, hit.getU(), 1e-6);
+    assertEquals(0.5f, hit.getV(), 1e-6);
+    assertEquals(0.25f, hit.getW(), 1e-6);
+    assertFalse(bvh.intersectNearest(0.25f, 0.5f, 2, 0, 0, -1, 1, hit));
+  }
+
+  @Test
+  void matchesBruteForce() {
+    Random random = new Random(7);
+    int triangleCount = 5000;
+    float[] positions = randomTriangles(random, triangleCount);
+    int[] indices = new int[3 * triangleCount];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = i;
+    }
+    TriangleBvh bvh = new TriangleBvh(positions, indices);
+    assertTrue(bvh.getNodeCount() < 2 * triangleCount);
+    checkRays(random, bvh, positions, indices);
+
+    // Move the vertices and refit
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] += (random.nextFloat() - 0.5f) * 0.2f;
+    }
+    bvh.refit();
+    checkRays(random, bvh, positions, indices);
+  }
+
+  private static void checkRays(Random random, TriangleBvh bvh, float[] positions, int[] indices) {
+    TriangleBvh.Hit hit = new TriangleBvh.Hit();
+    for (int r = 0; r < 200; r++) {
+      float ox = random.nextFloat() * 20 - 10, oy = random.nextFloat() * 20 - 10, oz = -15;
+      float dx = random.nextFloat() - 0.5f, dy = random.nextFloat() - 0.5f, dz = 1;
+
+      // Brute force
+      float nearest = Float.POSITIVE_INFINITY;
+      int hitCount = 0;
+      for (int t = 0; t < indices.length / 3; t++) {
+        TriangleBvh single = new TriangleBvh(positions, new int[]{indices[3 * t], indices[3 * t + 1], indices[3 * t + 2]});
+        if (single.intersectNearest(ox, oy, oz, dx, dy, dz, Float.POSITIVE_INFINITY, hit)) {
+          nearest = Math.min(nearest, hit.getDistance());
+          hitCount++;
+        }
+      }
+
+      boolean found = bvh.intersectNearest(ox, oy, oz, dx, dy, dz, Float.POSITIVE_INFINITY, hit);
+      assertEquals(nearest < Float.POSITIVE_INFINITY, found);
+      if (found) {
+        assertEquals(nearest, hit.getDistance(), 1e-5);
+      }
+      List<TriangleBvh.Hit> hits = new ArrayList<>();
+      assertEquals(hitCount, bvh.intersectAll(ox, oy, oz, dx, dy, dz, Float.POSITIVE_INFINITY, hits));
+      for (int i = 1; i < hits.size(); i++) {
+        assertTrue(hits.get(i - 1).getDistance() <= hits.get(i).getDistance());
+      }
+    }
+  }
+
+  private static float[] randomTriangles(Random random, int triangleCount) {
+    float[] positions = new float[9 * triangleCount];
+    for (int t = 0; t < triangleCount; t++) {
+      float cx = random.nextFloat() * 20 - 10, cy = random.nextFloat() * 20 - 10, cz = random.nextFloat() * 20 - 10;
+      for (int i = 0; i < 9; i += 3) {
+        positions[9 * t + i] = cx + random.nextFloat() - 0.5f;
+        positions[9 * t + i + 1] = cy + random.nextFloat() - 0.5f;
+        positions[9 * t + i + 2] = cz + random.nextFloat() - 0.5f;
+      }
+    }
+    return positions;
+  }
+}